@@ -0,0 +1,64 @@
+package com.zero.dynamic.aot;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AOT 缓存训练负载 (JEP 483)
+ *  - 以 {@code -XX:AOTMode=record} 启动应用并开启 {@code script.training.enabled} 时执行.
+ *  - 通过 {@link JavaScriptInvoker} 注册并调用示例脚本, 让 Spring、Truffle、GraalJS 的相关类全部加载、链接.
+ *  - 执行结束后退出应用, JVM 退出时写出 AOT 配置.
+ * 不使用条件注解, 因为 Spring AOT 处理时会在构建期固化条件判断结果.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrainingWorkload implements ApplicationRunner {
+    private static final String CONTENT = "请在电子邮件验证页面输入下方验证码：\r\n\r\n <b>%d</b> \r\n\r\n此电子邮件发出 3 小时后，验证码将过期。";
+
+    private final JavaScriptInvoker jsInvoker;
+    private final ApplicationContext applicationContext;
+
+    /// 是否执行训练负载
+    @Value("${script.training.enabled:false}")
+    private boolean enabled;
+    /// 每种调用方式的执行次数
+    @Value("${script.training.iterations:2000}")
+    private int iterations;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        String script = new ClassPathResource("scripts/verify-code.js").getContentAsString(StandardCharsets.UTF_8);
+        jsInvoker.register("training-a", script);
+        jsInvoker.register("training-b", script);
+        for (int i = 0; i < iterations; i++) {
+            String content = CONTENT.formatted(ThreadLocalRandom.current().nextInt(100000, 999999));
+            jsInvoker.call("training-a", "decode", content);
+            jsInvoker.callPooled("training-a", "decode", content);
+        }
+        // 并发执行路径: 虚拟线程、对象池等待
+        for (int i = 0; i < iterations / 10; i++) {
+            String content = CONTENT.formatted(ThreadLocalRandom.current().nextInt(100000, 999999));
+            jsInvoker.callAny(List.of("training-a", "training-b"), "decode", content);
+            jsInvoker.callAll(List.of("training-a", "training-b"), "decode", content);
+        }
+        log.info("training workload finished in {}ms, exiting", (System.nanoTime() - start) / 1_000_000);
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
@@ -0,0 +1,121 @@
+package com.zero.dynamic.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * 集群路由: 按一致性哈希把脚本ID分配给所属节点, 只有所属节点注册脚本、持有上下文,
+ * 其他节点收到请求时通过 HTTP 转发给所属节点.
+ * 节点列表来自 {@code script.cluster.members} (逗号分隔) 或 {@code script.cluster.members-file} (每行一个).
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Component
+public class ClusterRouter {
+    /// 转发请求标识, 收到带此请求头的请求时始终在本节点处理, 避免节点列表不一致时循环转发
+    public static final String FORWARDED_HEADER = "X-Script-Forwarded";
+    /// 路由提示: 脚本所属节点, 客户端可据此直接访问所属节点
+    public static final String OWNER_HEADER = "X-Script-Owner";
+
+    @Getter
+    private final boolean enabled;
+    @Getter
+    private final String self;
+    private final ConsistentHashRing ring;
+    private final HttpClient client;
+
+    public ClusterRouter(@Value("${script.cluster.enabled:false}") boolean enabled,
+                         @Value("${script.cluster.self:}") String self,
+                         @Value("${script.cluster.members:}") String members,
+                         @Value("${script.cluster.members-file:}") String membersFile,
+                         @Value("${script.cluster.virtual-nodes:160}") int virtualNodes) throws IOException {
+        this.enabled = enabled;
+        this.self = normalize(self);
+        if (!enabled) {
+            this.ring = null;
+            this.client = null;
+            return;
+        }
+        List<String> nodes = new ArrayList<>();
+        Arrays.stream(members.split(",")).filter(StringUtils::hasText).map(ClusterRouter::normalize).forEach(nodes::add);
+        if (StringUtils.hasText(membersFile)) {
+            Files.readAllLines(Path.of(membersFile)).stream()
+                    .filter(line -> StringUtils.hasText(line) && !line.startsWith("#"))
+                    .map(ClusterRouter::normalize)
+                    .forEach(nodes::add);
+        }
+        if (!nodes.contains(this.self)) {
+            throw new IllegalStateException("script.cluster.self [" + self + "] is not a cluster member: " + nodes);
+        }
+        this.ring = new ConsistentHashRing(nodes, virtualNodes);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(3))
+                .build();
+        log.info("cluster mode enabled, self: {}, members: {}", this.self, ring.nodes());
+    }
+
+    /**
+     * 脚本所属节点, 未开启集群时为本节点
+     */
+    public String owner(String id) {
+        return enabled ? ring.owner(id) : self;
+    }
+
+    /**
+     * 脚本是否由本节点处理
+     */
+    public boolean isLocal(String id) {
+        return !enabled || self.equals(ring.owner(id));
+    }
+
+    public List<String> members() {
+        return enabled ? ring.nodes() : List.of(self);
+    }
+
+    /**
+     * 将请求原样转发给所属节点
+     *
+     * @param request 原始请求
+     * @param owner   所属节点
+     * @return 所属节点的响应
+     */
+    public HttpResponse<byte[]> forward(HttpServletRequest request, String owner) throws IOException, InterruptedException {
+        String query = request.getQueryString();
+        URI uri = URI.create(owner + request.getRequestURI() + (query == null ? "" : "?" + query));
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header(FORWARDED_HEADER, self)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (request.getContentType() != null) {
+            builder.header("Content-Type", request.getContentType());
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String normalize(String url) {
+        String node = url.strip();
+        return node.endsWith("/") ? node.substring(0, node.length() - 1) : node;
+    }
+}
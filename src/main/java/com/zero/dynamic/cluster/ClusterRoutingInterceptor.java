@@ -0,0 +1,78 @@
+package com.zero.dynamic.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URLDecoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 按脚本ID路由请求: 本节点所属的脚本直接处理, 否则转发给所属节点.
+ * 所有经过的响应都带上 {@link ClusterRouter#OWNER_HEADER}, 客户端可以直接访问所属节点省去一次转发.
+ * 多个脚本ID的请求 ({@code ids}, 如 execute/any、execute/all) 只有全部属于同一节点时才能路由,
+ * 否则以 421 拒绝, 避免在非所属节点上把未注册的脚本当作没有结果.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterRoutingInterceptor implements HandlerInterceptor {
+    /// 脚本分布在多个节点, 无法由单个节点处理
+    public static final int MISDIRECTED_REQUEST = 421;
+
+    private final ClusterRouter router;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!router.isEnabled() || request.getQueryString() == null) return true;
+        // 只从查询参数中读取脚本ID, getParameter 会消费表单请求体, 导致无法原样转发
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUriString("?" + request.getQueryString()).build()
+                .getQueryParams();
+        List<String> ids = new ArrayList<>();
+        Optional.ofNullable(params.getFirst("id")).map(ClusterRoutingInterceptor::decode).ifPresent(ids::add);
+        // 与 @RequestParam List<String> 相同: 支持重复参数与逗号分隔
+        for (String value : params.getOrDefault("ids", List.of())) {
+            Arrays.stream(decode(value).split(",")).filter(id -> !id.isEmpty()).forEach(ids::add);
+        }
+        if (ids.isEmpty()) return true;
+        Map<String, String> owners = new TreeMap<>();
+        ids.forEach(id -> owners.put(id, router.owner(id)));
+        if (owners.values().stream().distinct().count() > 1) {
+            response.setStatus(MISDIRECTED_REQUEST);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("scripts belong to different cluster nodes: " + owners);
+            return false;
+        }
+        String owner = owners.values().iterator().next();
+        response.setHeader(ClusterRouter.OWNER_HEADER, owner);
+        if (router.getSelf().equals(owner) || request.getHeader(ClusterRouter.FORWARDED_HEADER) != null) {
+            return true;
+        }
+        log.debug("forward script {} {} to {}", owners.keySet(), request.getRequestURI(), owner);
+        HttpResponse<byte[]> forwarded = router.forward(request, owner);
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+        response.getOutputStream().write(forwarded.body());
+        return false;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
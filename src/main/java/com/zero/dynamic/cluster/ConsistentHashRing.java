@@ -0,0 +1,58 @@
+package com.zero.dynamic.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 一致性哈希环, 每个节点映射为多个虚拟节点, 使脚本ID在节点间均匀分布;
+ * 节点增减时只有相邻区间的脚本需要迁移.
+ *
+ * @author Zero.
+ */
+public class ConsistentHashRing {
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    /**
+     * @param nodes        节点列表
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("cluster members is empty");
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtual nodes must be positive");
+        this.nodes = List.copyOf(new LinkedHashSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * 获取 key 所属的节点: 环上顺时针方向的第一个虚拟节点.
+     */
+    public String owner(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /// 取 MD5 的前 8 个字节作为哈希值
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
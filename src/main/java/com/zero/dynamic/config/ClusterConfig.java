@@ -0,0 +1,32 @@
+package com.zero.dynamic.config;
+
+import com.zero.dynamic.cluster.ClusterRoutingInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 集群模式: 按脚本ID ({@code id} 或 {@code ids}) 路由的接口, 包括注册/注销/执行、流水线、正则集合、表达式、
+ * 调度租户配置、批处理任务与性能分析.
+ *
+ * @author Zero.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ClusterConfig implements WebMvcConfigurer {
+    private final ClusterRoutingInterceptor clusterRoutingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(clusterRoutingInterceptor)
+                .addPathPatterns(
+                        "/script/js/register", "/script/js/unregister", "/script/js/execute",
+                        "/script/js/execute/any", "/script/js/execute/all", "/script/js/pipeline/**",
+                        "/script/js/scheduler/tenant",
+                        "/script/pattern/**", "/script/expr/**",
+                        "/python/register", "/python/execute",
+                        "/script/job/submit", "/script/job/status", "/script/job/cancel",
+                        "/admin/profiler/cpu");
+    }
+}
@@ -0,0 +1,28 @@
+package com.zero.dynamic.config;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 脚本上下文对象池配置
+ *
+ * @author Zero.
+ */
+@Configuration
+public class ScriptPoolConfig {
+
+    /**
+     * 全局对象池注册表, 所有脚本的上下文共享同一份预算.
+     * @param maxContexts       上下文总数上限, 默认不限制 (不淘汰)
+     * @param maxAllocatedBytes 对象池构建期间内存分配量之和的上限 (字节), 默认不限制
+     * @param contextBytes      无法统计线程内存分配时, 单个上下文的估算分配量 (字节)
+     */
+    @Bean
+    public WorkerPoolRegistry workerPoolRegistry(@Value("${script.registry.max-contexts:0}") int maxContexts,
+                                                 @Value("${script.registry.max-allocated-bytes:0}") long maxAllocatedBytes,
+                                                 @Value("${script.registry.context-bytes:8388608}") long contextBytes) {
+        return new WorkerPoolRegistry(maxContexts, maxAllocatedBytes, contextBytes);
+    }
+}
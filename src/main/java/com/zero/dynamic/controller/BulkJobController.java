@@ -0,0 +1,68 @@
+package com.zero.dynamic.controller;
+
+import com.zero.dynamic.job.BulkJob;
+import com.zero.dynamic.job.BulkJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 离线批处理任务
+ *
+ * @author Zero.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/script/job")
+public class BulkJobController {
+    private final BulkJobService bulkJobService;
+
+    /**
+     * 提交批处理任务
+     * @param id          脚本ID
+     * @param function    函数名
+     * @param input       输入文件 (相对于 script.job.dir), 每行一条记录
+     * @param output      输出文件 (相对于 script.job.dir), 每行一条结果
+     * @param parallelism 并行度, 默认为 script.job.parallelism
+     */
+    @PostMapping("/submit")
+    public BulkJob.Progress submit(@RequestParam String id,
+                                   @RequestParam(defaultValue = "decode") String function,
+                                   @RequestParam String input,
+                                   @RequestParam String output,
+                                   @RequestParam(defaultValue = "0") int parallelism) throws IOException {
+        return bulkJobService.submit(id, function, input, output, parallelism).progress();
+    }
+
+    /**
+     * 任务进度与吞吐量
+     * @param jobId 任务ID
+     * @param id    脚本ID, 集群模式下用于路由到任务所在节点 (脚本所属节点)
+     */
+    @GetMapping("/status")
+    public BulkJob.Progress status(@RequestParam String jobId, @RequestParam(required = false) String id) {
+        return bulkJobService.get(jobId).progress();
+    }
+
+    /**
+     * 本节点的全部任务
+     */
+    @GetMapping("/list")
+    public List<BulkJob.Progress> list() {
+        return bulkJobService.list().stream().map(BulkJob::progress).toList();
+    }
+
+    /**
+     * 取消任务, 已写出的结果保留
+     * @param jobId 任务ID
+     * @param id    脚本ID, 集群模式下用于路由到任务所在节点 (脚本所属节点)
+     */
+    @PostMapping("/cancel")
+    public BulkJob.Progress cancel(@RequestParam String jobId, @RequestParam(required = false) String id) {
+        return bulkJobService.cancel(jobId).progress();
+    }
+}
@@ -0,0 +1,50 @@
+package com.zero.dynamic.controller;
+
+import com.zero.dynamic.cluster.ClusterRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 集群信息, 供客户端路由
+ *
+ * @author Zero.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/cluster")
+public class ClusterController {
+    private final ClusterRouter router;
+
+    /**
+     * 集群节点列表
+     */
+    @GetMapping("/members")
+    public Map<String, Object> members() {
+        return Map.of("enabled", router.isEnabled(), "self", router.getSelf(), "members", router.members());
+    }
+
+    /**
+     * 脚本所属节点
+     * @param id 脚本ID
+     */
+    @GetMapping("/owner")
+    public String owner(@RequestParam String id) {
+        return router.owner(id);
+    }
+
+    /**
+     * 批量查询脚本所属节点
+     * @param ids 脚本ID列表
+     */
+    @GetMapping("/owners")
+    public Map<String, String> owners(@RequestParam List<String> ids) {
+        return ids.stream().distinct().collect(Collectors.toMap(id -> id, router::owner));
+    }
+}
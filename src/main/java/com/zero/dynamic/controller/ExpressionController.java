@@ -0,0 +1,50 @@
+package com.zero.dynamic.controller;
+
+import com.zero.dynamic.invoker.ExpressionInvoker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 表达式规则管理
+ *
+ * @author Zero.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/script/expr")
+public class ExpressionController {
+    private final ExpressionInvoker expressionInvoker;
+
+    /**
+     * 注册表达式
+     * @param id         规则ID
+     * @param expression 表达式, 如 input.extract("&lt;b&gt;(\d{6})&lt;/b&gt;") ?? input.extract("\n(\d{6})\r")
+     */
+    @PostMapping("/register")
+    public String register(@RequestParam String id, @RequestBody String expression) {
+        expressionInvoker.register(id, expression);
+        return id;
+    }
+
+    /**
+     * 注销表达式
+     * @param id 规则ID
+     */
+    @PostMapping("/unregister")
+    public String unregister(@RequestParam String id) {
+        expressionInvoker.unregister(id);
+        return id;
+    }
+
+    /**
+     * 执行表达式
+     * @param id      规则ID
+     * @param content 参数
+     */
+    @GetMapping("/execute")
+    public Object execute(@RequestParam String id, @RequestParam String content) {
+        return expressionInvoker.call(id, content);
+    }
+}
@@ -1,10 +1,19 @@
 package com.zero.dynamic.controller;
 
 import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.ScriptOptions;
+import com.zero.dynamic.pool.CallCoalescer;
+import com.zero.dynamic.pool.FairScheduler;
+import com.zero.dynamic.pool.RecyclePolicy;
+import com.zero.dynamic.pool.SharedContextPool;
+import com.zero.dynamic.pool.impl.InvokerPipelineWorker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Objects;
+
 /**
  * 执行各种脚本语言
  *
@@ -20,12 +29,35 @@ public class JavaScriptExecuteController {
 
     /**
      * 注册脚本
-     * @param id    脚本ID
-     * @param script 脚本内容
+     * @param id               脚本ID
+     * @param script           脚本内容
+     * @param isolate          是否在独立的 polyglot isolate 中执行
+     * @param maxIsolateMemory isolate 堆内存上限, 如 256MB
+     * @param maxCalls         实例执行次数上限, 超出后回收 (替换为新的上下文); 回收参数均未指定时使用全局配置
+     * @param maxAgeMinutes    实例存活时长上限 (分钟)
+     * @param maxAllocatedMb   实例执行期间累计分配的内存上限 (MB)
      */
     @PostMapping("/register")
-    public String register(@RequestParam String id, @RequestBody String script) {
-        jsInvoker.register(id, script);
+    public String register(@RequestParam String id, @RequestBody String script,
+                           @RequestParam(defaultValue = "false") boolean isolate,
+                           @RequestParam(required = false) String maxIsolateMemory,
+                           @RequestParam(required = false) Long maxCalls,
+                           @RequestParam(required = false) Long maxAgeMinutes,
+                           @RequestParam(required = false) Long maxAllocatedMb) {
+        RecyclePolicy recycle = maxCalls == null && maxAgeMinutes == null && maxAllocatedMb == null ? null
+                : jsInvoker.recyclePolicy(Objects.requireNonNullElse(maxCalls, 0L),
+                Objects.requireNonNullElse(maxAgeMinutes, 0L), Objects.requireNonNullElse(maxAllocatedMb, 0L));
+        jsInvoker.register(id, script, new ScriptOptions(isolate, maxIsolateMemory, recycle));
+        return id;
+    }
+
+    /**
+     * 注销脚本, 释放其上下文
+     * @param id 脚本ID
+     */
+    @PostMapping("/unregister")
+    public String unregister(@RequestParam String id) {
+        jsInvoker.unregister(id);
         return id;
     }
 
@@ -35,12 +67,117 @@ public class JavaScriptExecuteController {
      * @param content 参数
      */
     @GetMapping("/execute")
-    public Object javascript(@RequestParam String id, @RequestParam String content) {
-        String ret = jsInvoker.call(id, "decode", content);
+    public Object javascript(@RequestParam String id, @RequestParam String content) throws InterruptedException {
+        String ret = jsInvoker.callPooled(id, "decode", content);
+        // 与 call 保持一致: 脚本返回 null 时响应 "null", 只有脚本未注册时响应为空
+        if (ret == null && jsInvoker.contains(id)) ret = "null";
         log.info("ret: {}", ret);
         return ret;
     }
 
+    /**
+     * 并发执行多个脚本, 返回第一个非 null 的结果
+     * @param ids     脚本ID列表
+     * @param content 参数
+     */
+    @GetMapping("/execute/any")
+    public Object any(@RequestParam List<String> ids, @RequestParam String content) throws InterruptedException {
+        return jsInvoker.callAny(ids, "decode", content);
+    }
+
+    /**
+     * 并发执行多个脚本, 返回全部结果
+     * @param ids     脚本ID列表
+     * @param content 参数
+     */
+    @GetMapping("/execute/all")
+    public Object all(@RequestParam List<String> ids, @RequestParam String content) throws InterruptedException {
+        return jsInvoker.callAll(ids, "decode", content);
+    }
+
+    /**
+     * 注册流水线
+     * @param id     流水线ID
+     * @param stages 流水线阶段: [{"id": "脚本ID", "function": "函数名"}, ...]
+     */
+    @PostMapping("/pipeline/register")
+    public String registerPipeline(@RequestParam String id, @RequestBody List<InvokerPipelineWorker.Stage> stages) {
+        jsInvoker.registerPipeline(id, stages);
+        return id;
+    }
+
+    /**
+     * 在同一个上下文中执行流水线
+     * @param id      流水线ID
+     * @param content 第一阶段的参数
+     * @param timing  是否返回各阶段耗时
+     */
+    @GetMapping("/pipeline/execute")
+    public Object pipeline(@RequestParam String id, @RequestParam String content,
+                           @RequestParam(defaultValue = "false") boolean timing) throws InterruptedException {
+        JavaScriptInvoker.PipelineResult result = jsInvoker.callPipeline(id, content, timing);
+        if (result == null || !timing) return result == null ? null : result.value();
+        return result;
+    }
+
+    /**
+     * 上下文对象池统计: 命中、未命中、淘汰次数, 当前上下文数量与构建分配量, 实例回收次数
+     */
+    @GetMapping("/registry/stats")
+    public Object stats() {
+        return jsInvoker.stats();
+    }
+
+    /**
+     * 脚本去重统计: 已注册的脚本ID数量, 去重后的脚本数量
+     */
+    @GetMapping("/scripts/stats")
+    public JavaScriptInvoker.ScriptStats scriptStats() {
+        return jsInvoker.scriptStats();
+    }
+
+    /**
+     * 设置脚本在公平调度中的权重与并发上限
+     * @param id             脚本ID (或流水线ID)
+     * @param weight         权重
+     * @param maxConcurrency 并发上限, 小于等于 0 表示仅受全局上限限制
+     */
+    @PostMapping("/scheduler/tenant")
+    public String schedulerTenant(@RequestParam String id, @RequestParam(defaultValue = "1") int weight,
+                                  @RequestParam(defaultValue = "0") int maxConcurrency) {
+        FairScheduler scheduler = jsInvoker.getScheduler();
+        if (scheduler == null) throw new IllegalStateException("fair scheduling is not enabled");
+        scheduler.configure(id, weight, maxConcurrency);
+        return id;
+    }
+
+    /**
+     * 公平调度统计信息, 未启用时为空
+     */
+    @GetMapping("/scheduler/stats")
+    public Object schedulerStats() {
+        FairScheduler scheduler = jsInvoker.getScheduler();
+        return scheduler == null ? null : scheduler.stats();
+    }
+
+    /**
+     * 共享上下文池统计信息, 未启用时为空
+     */
+    @GetMapping("/shared/stats")
+    public Object sharedStats() {
+        SharedContextPool sharedPool = jsInvoker.getSharedPool();
+        return sharedPool == null ? null : sharedPool.stats();
+    }
+
+    /**
+     * 调用合并统计信息, 未启用时为空
+     */
+    @GetMapping("/coalescer/stats")
+    public Object coalescerStats() {
+        CallCoalescer coalescer = jsInvoker.getCoalescer();
+        return coalescer == null ? null : coalescer.stats();
+    }
+
     /**
      * 编译并且执行 JavaScript 脚本.
      * @param script 脚本内容
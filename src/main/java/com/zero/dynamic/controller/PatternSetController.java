@@ -0,0 +1,50 @@
+package com.zero.dynamic.controller;
+
+import com.zero.dynamic.invoker.PatternSetInvoker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 正则集合脚本管理
+ *
+ * @author Zero.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/script/pattern")
+public class PatternSetController {
+    private final PatternSetInvoker patternSetInvoker;
+
+    /**
+     * 注册正则集合
+     * @param id     脚本ID
+     * @param script 正则集合, 每行一个
+     */
+    @PostMapping("/register")
+    public String register(@RequestParam String id, @RequestBody String script) {
+        patternSetInvoker.register(id, script);
+        return id;
+    }
+
+    /**
+     * 注销正则集合
+     * @param id 脚本ID
+     */
+    @PostMapping("/unregister")
+    public String unregister(@RequestParam String id) {
+        patternSetInvoker.unregister(id);
+        return id;
+    }
+
+    /**
+     * 按顺序匹配, 返回第一个匹配的捕获组
+     * @param id      脚本ID
+     * @param content 参数
+     */
+    @GetMapping("/execute")
+    public Object execute(@RequestParam String id, @RequestParam String content) {
+        return patternSetInvoker.call(id, content);
+    }
+}
@@ -0,0 +1,77 @@
+package com.zero.dynamic.controller;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.PythonScriptInvoker;
+import com.zero.dynamic.profiler.ScriptCpuProfiler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Engine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+/**
+ * 脚本性能分析 (管理接口)
+ *
+ * @author Zero.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/profiler")
+public class ProfilerController {
+    private final JavaScriptInvoker jsInvoker;
+    /// 关闭 Python 运行时 (script.python.enabled=false) 时不存在
+    private final ObjectProvider<PythonScriptInvoker> pythonScriptInvoker;
+    private final ScriptCpuProfiler profiler;
+
+    /**
+     * 对指定脚本进行 CPU 采样, 阻塞直到采样窗口结束.
+     * 采样器挂载在共享引擎上, isolate 模式的脚本运行在独立的 isolate 中, 无法采样.
+     * @param lang    脚本语言: js / python
+     * @param id      脚本ID
+     * @param seconds 采样时长 (秒), 大于 0, 超过 60 秒时按 60 秒采样
+     * @param period  采样间隔 (毫秒), 大于 0 且不超过采样时长
+     * @param format  输出格式: collapsed (火焰图 collapsed-stack 文本) / json (调用树)
+     */
+    @GetMapping("/cpu")
+    public ResponseEntity<?> cpu(@RequestParam(defaultValue = "js") String lang,
+                                 @RequestParam String id,
+                                 @RequestParam(defaultValue = "10") long seconds,
+                                 @RequestParam(defaultValue = "10") long period,
+                                 @RequestParam(defaultValue = "collapsed") String format) throws InterruptedException {
+        if (seconds <= 0 || period <= 0) {
+            throw new IllegalArgumentException("seconds and period must be positive: " + seconds + ", " + period);
+        }
+        Duration window = Duration.ofSeconds(Math.min(seconds, ScriptCpuProfiler.MAX_WINDOW.toSeconds()));
+        if (period > window.toMillis()) {
+            throw new IllegalArgumentException("period must not exceed the window: " + period + "ms > " + window.toMillis() + "ms");
+        }
+        // 内容相同的 JS 脚本共享同一个以内容摘要命名的 Source, 按 Source 名称匹配采样, 结果中显示为请求的脚本ID
+        String name = id;
+        Engine engine = switch (lang) {
+            case "js" -> {
+                if (!jsInvoker.contains(id)) throw new IllegalArgumentException("script not registered: " + id);
+                if (jsInvoker.isIsolated(id)) throw new IllegalArgumentException("isolate scripts cannot be profiled: " + id);
+                name = jsInvoker.sourceName(id);
+                yield jsInvoker.getEngine();
+            }
+            case "python" -> {
+                PythonScriptInvoker pythonScriptInvoker = this.pythonScriptInvoker.getIfAvailable();
+                if (pythonScriptInvoker == null) throw new IllegalArgumentException("python runtime disabled");
+                if (!pythonScriptInvoker.contains(id)) throw new IllegalArgumentException("script not registered: " + id);
+                yield pythonScriptInvoker.getEngine();
+            }
+            default -> throw new IllegalArgumentException("unsupported language: " + lang);
+        };
+        ScriptCpuProfiler.CpuProfile profile = profiler.profile(engine, name, id, window, period);
+        log.info("profile script [{}] finished, samples: {}", id, profile.samples());
+        if ("json".equals(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(profile);
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(profile.collapsed());
+    }
+}
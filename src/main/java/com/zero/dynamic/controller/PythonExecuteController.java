@@ -4,6 +4,7 @@ import com.zero.dynamic.invoker.PythonScriptInvoker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/python")
+@ConditionalOnProperty(name = "script.python.enabled", havingValue = "true", matchIfMissing = true)
 public class PythonExecuteController {
     private final PythonScriptInvoker pythonScriptInvoker;
 
@@ -0,0 +1,673 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.jfr.JavaCompileEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.classfile.Opcode;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static java.lang.constant.ConstantDescs.*;
+
+/**
+ * 表达式编译器: 将单行规则表达式直接生成字节码 ({@code java.lang.classfile}), 定义为隐藏类, 不经过 javac.
+ * <p>
+ * 相比 {@link JavaDynamicCompiler}, 编译耗时从数百毫秒降到微秒级, 运行时也不需要 JDK 编译器.
+ * 隐藏类不注册到任何类加载器, 编译结果不再被引用后, 类可以随之卸载.
+ * <p>
+ * 语法 (输入为字符串 {@code input}, 结果转换为字符串返回):
+ * <pre>
+ * 字面量   "text" 'text' 123 true false null
+ * 运算     a ?? b (a 为 null 时取 b)   c ? a : b   || && !   == != &lt; &lt;= &gt; &gt;=   + -
+ * 字符串   s.length() s.isEmpty() s.trim() s.lower() s.upper() s.contains(t) s.startsWith(t) s.endsWith(t)
+ *          s.indexOf(t) s.substring(begin[, end]) s.replace(a, b)
+ * 正则     s.test("regex") s.extract("regex"[, group]), 正则与捕获组须为字面量, 编译时预编译;
+ *          test 与 extract 一样查找子串, 需要整体匹配时在正则中使用 ^ 与 $
+ * </pre>
+ * extract 未匹配时返回 null, 其结果 (以及可能为 null 的条件表达式) 须先经 {@code ??} 提供默认值才能继续调用方法.
+ * 示例: {@code input.extract("<b>(\\d{6})</b>") ?? input.extract("\\n(\\d{6})\\r")}
+ *
+ * @author Zero.
+ */
+@Slf4j
+public class ExpressionCompiler {
+    private static final ClassDesc CD_FUNCTION = ClassDesc.of("java.util.function.Function");
+    private static final ClassDesc CD_PATTERN = ClassDesc.of("java.util.regex.Pattern");
+    private static final ClassDesc CD_LOCALE = ClassDesc.of("java.util.Locale");
+    private static final ClassDesc CD_OBJECTS = ClassDesc.of("java.util.Objects");
+    private static final ClassDesc CD_CHAR_SEQUENCE = ClassDesc.of("java.lang.CharSequence");
+    private static final ClassDesc CD_RUNTIME = ClassDesc.of(ExpressionRuntime.class.getName());
+    /// 隐藏类须与定义它的 Lookup 位于同一个包, JVM 会在类名后追加唯一后缀
+    private static final ClassDesc CD_THIS = ClassDesc.of(ExpressionCompiler.class.getPackageName() + ".CompiledExpression");
+    /// 常量数组字段, 保存预编译的正则
+    private static final String CONSTANTS = "constants";
+    private static final ClassDesc CD_CONSTANTS = CD_Object.arrayType();
+
+    /// 表达式的值类型, NULLABLE 为可能为 null 的字符串 (如 extract 的结果), 须经 ?? 提供默认值后才能调用方法
+    enum Type {
+        STRING, NULLABLE, INT, BOOLEAN, NULL;
+
+        /// 字符串类型, 可用于拼接与比较
+        boolean text() {
+            return this == STRING || this == NULLABLE;
+        }
+    }
+
+    /// 语法树
+    sealed interface Node {
+    }
+
+    record Input() implements Node {
+    }
+
+    record Literal(Type type, Object value) implements Node {
+    }
+
+    record Not(Node operand) implements Node {
+    }
+
+    record Binary(String operator, Node left, Node right) implements Node {
+    }
+
+    record Conditional(Node condition, Node then, Node otherwise) implements Node {
+    }
+
+    record Call(Node target, String method, List<Node> args) implements Node {
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 表达式
+     * @return 以输入字符串为参数, 返回表达式结果的函数
+     */
+    @SuppressWarnings("unchecked")
+    public Function<String, String> compile(String expression) {
+        JavaCompileEvent event = new JavaCompileEvent(CD_THIS.displayName());
+        event.begin();
+        byte[] bytecode = null;
+        try {
+            // 语法、类型、正则错误均在解析与类型检查时以 IllegalArgumentException 抛出
+            Node root = new Parser(expression).parse();
+            Checker checker = new Checker();
+            Type result = checker.type(root);
+            List<Object> constants = new ArrayList<>();
+            try {
+                bytecode = this.generate(root, result, checker, constants);
+                // 不使用 STRONG 选项, 隐藏类只被其实例引用, 实例不可达后即可卸载
+                MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+                Object function = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class))
+                        .invoke(constants.toArray());
+                return (Function<String, String>) function;
+            } catch (Throwable e) {
+                // 通过检查的表达式无法生成或加载 (如栈映射帧生成失败、字节码校验失败) 是编译器自身的缺陷, 不是表达式错误
+                bytecode = null;
+                throw new IllegalStateException("failed to define expression class: " + expression, e);
+            }
+        } finally {
+            event.commit(bytecode, false);
+        }
+    }
+
+    /**
+     * 生成类: {@code final class CompiledExpression implements Function { Object[] constants; Object apply(Object) }}
+     */
+    private byte[] generate(Node root, Type result, Checker checker, List<Object> constants) {
+        return ClassFile.of().build(CD_THIS, clb -> clb
+                .withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL | ClassFile.ACC_SUPER)
+                .withSuperclass(CD_Object)
+                .withInterfaceSymbols(CD_FUNCTION)
+                .withField(CONSTANTS, CD_CONSTANTS, ClassFile.ACC_PRIVATE | ClassFile.ACC_FINAL)
+                .withMethodBody(INIT_NAME, MethodTypeDesc.of(CD_void, CD_CONSTANTS), ClassFile.ACC_PUBLIC, cb -> cb
+                        .aload(0)
+                        .invokespecial(CD_Object, INIT_NAME, MTD_void)
+                        .aload(0)
+                        .aload(1)
+                        .putfield(CD_THIS, CONSTANTS, CD_CONSTANTS)
+                        .return_())
+                .withMethodBody("apply", MethodTypeDesc.of(CD_Object, CD_Object), ClassFile.ACC_PUBLIC, cb -> {
+                    // 参数转换为 String 保存在局部变量 2
+                    cb.aload(1).checkcast(CD_String).astore(2);
+                    new Generator(cb, checker, constants).generate(root);
+                    switch (result) {
+                        case INT -> cb.invokestatic(CD_String, "valueOf", MethodTypeDesc.of(CD_String, CD_int));
+                        case BOOLEAN -> cb.invokestatic(CD_String, "valueOf", MethodTypeDesc.of(CD_String, CD_boolean));
+                        default -> {
+                        }
+                    }
+                    cb.areturn();
+                }));
+    }
+
+    private static IllegalArgumentException mismatch(String operator, Type type) {
+        return new IllegalArgumentException("unsupported operand type for '" + operator + "': " + type);
+    }
+
+    /// 字符串方法签名
+    record Signature(Type result, List<Type> params, int optional) {
+    }
+
+    /**
+     * 类型检查: 每个节点的类型只推导一次并缓存, 生成字节码时直接复用.
+     */
+    static final class Checker {
+        /// 按节点对象缓存类型, 结构相同的子树各自缓存, 避免 record 递归计算 hashCode
+        private final Map<Node, Type> types = new IdentityHashMap<>();
+
+        /**
+         * 表达式类型, 类型不匹配时抛出 {@link IllegalArgumentException}
+         */
+        Type type(Node node) {
+            Type type = types.get(node);
+            if (type == null) {
+                type = this.infer(node);
+                types.put(node, type);
+            }
+            return type;
+        }
+
+        private Type infer(Node node) {
+            return switch (node) {
+                case Input ignored -> Type.STRING;
+                case Literal literal -> literal.type();
+                case Not not -> this.expect(not.operand(), Type.BOOLEAN, "!");
+                case Conditional c -> {
+                    this.expect(c.condition(), Type.BOOLEAN, "?:");
+                    yield this.unify(this.type(c.then()), this.type(c.otherwise()), "?:");
+                }
+                case Binary b -> switch (b.operator()) {
+                    case "||", "&&" -> {
+                        this.expect(b.left(), Type.BOOLEAN, b.operator());
+                        this.expect(b.right(), Type.BOOLEAN, b.operator());
+                        yield Type.BOOLEAN;
+                    }
+                    case "??" -> {
+                        this.unify(this.type(b.left()), Type.STRING, "??");
+                        // 右侧不为 null 时结果不为 null
+                        Type right = this.type(b.right());
+                        yield right == Type.STRING ? Type.STRING : this.unify(right, Type.NULLABLE, "??");
+                    }
+                    case "==", "!=" -> {
+                        this.unify(this.type(b.left()), this.type(b.right()), b.operator());
+                        yield Type.BOOLEAN;
+                    }
+                    case "<", "<=", ">", ">=" -> {
+                        Type type = this.unify(this.type(b.left()), this.type(b.right()), b.operator());
+                        if (type != Type.INT && type != Type.STRING) throw mismatch(b.operator(), type);
+                        yield Type.BOOLEAN;
+                    }
+                    case "+" -> {
+                        Type left = this.type(b.left());
+                        Type right = this.type(b.right());
+                        if (left.text() || right.text()) {
+                            if (left == Type.NULL || right == Type.NULL) throw mismatch("+", Type.NULL);
+                            yield Type.STRING;
+                        }
+                        if (left != Type.INT) throw mismatch("+", left);
+                        if (right != Type.INT) throw mismatch("+", right);
+                        yield Type.INT;
+                    }
+                    case "-" -> {
+                        this.expect(b.left(), Type.INT, "-");
+                        yield this.expect(b.right(), Type.INT, "-");
+                    }
+                    default -> throw new IllegalArgumentException("unsupported operator: " + b.operator());
+                };
+                case Call call -> {
+                    if (this.type(call.target()) == Type.NULLABLE) {
+                        throw new IllegalArgumentException("'." + call.method() + "' on a value that may be null, use ?? to provide a default");
+                    }
+                    this.expect(call.target(), Type.STRING, "." + call.method());
+                    yield this.signature(call).result();
+                }
+            };
+        }
+
+        private Type expect(Node node, Type expected, String operator) {
+            Type actual = this.type(node);
+            if (actual != expected) throw mismatch(operator, actual);
+            return actual;
+        }
+
+        /// 两个分支的公共类型, 字符串与 null 合并为可能为 null 的字符串
+        private Type unify(Type a, Type b, String operator) {
+            if (a == b) return a;
+            if ((a.text() || a == Type.NULL) && (b.text() || b == Type.NULL)) return Type.NULLABLE;
+            throw new IllegalArgumentException("type mismatch for '" + operator + "': " + a + " and " + b);
+        }
+
+        /**
+         * 校验方法调用的参数, 返回方法签名
+         */
+        private Signature signature(Call call) {
+            Signature signature = switch (call.method()) {
+                case "length", "indexOf" -> new Signature(Type.INT, call.method().equals("length") ? List.of() : List.of(Type.STRING), 0);
+                case "isEmpty" -> new Signature(Type.BOOLEAN, List.of(), 0);
+                case "trim", "lower", "upper" -> new Signature(Type.STRING, List.of(), 0);
+                case "contains", "startsWith", "endsWith" -> new Signature(Type.BOOLEAN, List.of(Type.STRING), 0);
+                case "substring" -> new Signature(Type.STRING, List.of(Type.INT, Type.INT), 1);
+                case "replace" -> new Signature(Type.STRING, List.of(Type.STRING, Type.STRING), 0);
+                // 查找匹配正则的子串
+                case "test" -> new Signature(Type.BOOLEAN, List.of(Type.STRING), 0);
+                // 未匹配时为 null
+                case "extract" -> new Signature(Type.NULLABLE, List.of(Type.STRING, Type.INT), 1);
+                default -> throw new IllegalArgumentException("unsupported method: " + call.method());
+            };
+            int size = call.args().size();
+            if (size > signature.params().size() || size < signature.params().size() - signature.optional()) {
+                throw new IllegalArgumentException("wrong number of arguments for " + call.method() + ": " + size);
+            }
+            for (int i = 0; i < size; i++) {
+                this.expect(call.args().get(i), signature.params().get(i), call.method());
+            }
+            if (call.method().equals("test") || call.method().equals("extract")) {
+                // 正则与捕获组在编译时确定
+                for (Node arg : call.args()) {
+                    if (!(arg instanceof Literal)) {
+                        throw new IllegalArgumentException(call.method() + " arguments must be literals");
+                    }
+                }
+                Pattern pattern = Pattern.compile((String) ((Literal) call.args().getFirst()).value());
+                if (size > 1) {
+                    int group = (Integer) ((Literal) call.args().get(1)).value();
+                    if (group < 0 || group > pattern.matcher("").groupCount()) {
+                        throw new IllegalArgumentException("no group " + group + " in regex: " + pattern);
+                    }
+                }
+            }
+            return signature;
+        }
+    }
+
+    /**
+     * 按语法树生成字节码, 每个节点执行后在操作数栈上留下一个值
+     */
+    private final class Generator {
+        private final CodeBuilder cb;
+        /// 已完成类型检查, 只读取缓存的节点类型
+        private final Checker checker;
+        private final List<Object> constants;
+
+        Generator(CodeBuilder cb, Checker checker, List<Object> constants) {
+            this.cb = cb;
+            this.checker = checker;
+            this.constants = constants;
+        }
+
+        void generate(Node node) {
+            switch (node) {
+                case Input ignored -> cb.aload(2);
+                case Literal literal -> {
+                    switch (literal.type()) {
+                        case NULL -> cb.aconst_null();
+                        case BOOLEAN -> cb.loadConstant((Boolean) literal.value() ? 1 : 0);
+                        case INT -> cb.loadConstant((Integer) literal.value());
+                        case STRING -> cb.loadConstant((String) literal.value());
+                    }
+                }
+                case Not not -> {
+                    this.generate(not.operand());
+                    cb.iconst_1().ixor();
+                }
+                case Conditional c -> {
+                    Label otherwise = cb.newLabel();
+                    Label end = cb.newLabel();
+                    this.generate(c.condition());
+                    cb.ifeq(otherwise);
+                    this.generate(c.then());
+                    cb.goto_(end);
+                    cb.labelBinding(otherwise);
+                    this.generate(c.otherwise());
+                    cb.labelBinding(end);
+                }
+                case Binary b -> this.binary(b);
+                case Call call -> this.call(call);
+            }
+        }
+
+        private void binary(Binary b) {
+            switch (b.operator()) {
+                case "&&", "||" -> {
+                    boolean and = b.operator().equals("&&");
+                    Label shortCircuit = cb.newLabel();
+                    Label end = cb.newLabel();
+                    this.generate(b.left());
+                    if (and) cb.ifeq(shortCircuit); else cb.ifne(shortCircuit);
+                    this.generate(b.right());
+                    if (and) cb.ifeq(shortCircuit); else cb.ifne(shortCircuit);
+                    cb.loadConstant(and ? 1 : 0);
+                    cb.goto_(end);
+                    cb.labelBinding(shortCircuit);
+                    cb.loadConstant(and ? 0 : 1);
+                    cb.labelBinding(end);
+                }
+                case "??" -> {
+                    Label end = cb.newLabel();
+                    this.generate(b.left());
+                    cb.dup().branch(Opcode.IFNONNULL, end);
+                    cb.pop();
+                    this.generate(b.right());
+                    cb.labelBinding(end);
+                }
+                case "==", "!=" -> {
+                    Type type = checker.type(b.left()) == Type.NULL ? checker.type(b.right()) : checker.type(b.left());
+                    this.generate(b.left());
+                    this.generate(b.right());
+                    if (type.text() || type == Type.NULL) {
+                        cb.invokestatic(CD_OBJECTS, "equals", MethodTypeDesc.of(CD_boolean, CD_Object, CD_Object));
+                        if (b.operator().equals("!=")) cb.iconst_1().ixor();
+                    } else {
+                        this.compareInts(b.operator());
+                    }
+                }
+                case "<", "<=", ">", ">=" -> {
+                    this.generate(b.left());
+                    this.generate(b.right());
+                    if (checker.type(b.left()) == Type.STRING) {
+                        cb.invokevirtual(CD_String, "compareTo", MethodTypeDesc.of(CD_int, CD_String));
+                        cb.iconst_0();
+                    }
+                    this.compareInts(b.operator());
+                }
+                case "+" -> {
+                    if (checker.type(b) == Type.STRING) {
+                        this.generate(b.left());
+                        this.toText(checker.type(b.left()));
+                        this.generate(b.right());
+                        this.toText(checker.type(b.right()));
+                        cb.invokevirtual(CD_String, "concat", MethodTypeDesc.of(CD_String, CD_String));
+                    } else {
+                        this.generate(b.left());
+                        this.generate(b.right());
+                        cb.iadd();
+                    }
+                }
+                case "-" -> {
+                    this.generate(b.left());
+                    this.generate(b.right());
+                    cb.isub();
+                }
+                default -> throw new IllegalArgumentException("unsupported operator: " + b.operator());
+            }
+        }
+
+        /// 比较栈顶两个 int, 结果为 0 / 1
+        private void compareInts(String operator) {
+            Label yes = cb.newLabel();
+            Label end = cb.newLabel();
+            switch (operator) {
+                case "==" -> cb.if_icmpeq(yes);
+                case "!=" -> cb.if_icmpne(yes);
+                case "<" -> cb.if_icmplt(yes);
+                case "<=" -> cb.if_icmple(yes);
+                case ">" -> cb.if_icmpgt(yes);
+                case ">=" -> cb.if_icmpge(yes);
+                default -> throw new IllegalArgumentException("unsupported operator: " + operator);
+            }
+            cb.iconst_0();
+            cb.goto_(end);
+            cb.labelBinding(yes);
+            cb.iconst_1();
+            cb.labelBinding(end);
+        }
+
+        /// 栈顶的值转换为字符串, 用于字符串拼接
+        private void toText(Type type) {
+            switch (type) {
+                case INT -> cb.invokestatic(CD_String, "valueOf", MethodTypeDesc.of(CD_String, CD_int));
+                case BOOLEAN -> cb.invokestatic(CD_String, "valueOf", MethodTypeDesc.of(CD_String, CD_boolean));
+                default -> cb.invokestatic(CD_String, "valueOf", MethodTypeDesc.of(CD_String, CD_Object));
+            }
+        }
+
+        private void call(Call call) {
+            this.generate(call.target());
+            List<Node> args = call.args();
+            switch (call.method()) {
+                case "length" -> cb.invokevirtual(CD_String, "length", MethodTypeDesc.of(CD_int));
+                case "isEmpty" -> cb.invokevirtual(CD_String, "isEmpty", MethodTypeDesc.of(CD_boolean));
+                case "trim" -> cb.invokevirtual(CD_String, "strip", MethodTypeDesc.of(CD_String));
+                case "lower", "upper" -> {
+                    cb.getstatic(CD_LOCALE, "ROOT", CD_LOCALE);
+                    cb.invokevirtual(CD_String, call.method().equals("lower") ? "toLowerCase" : "toUpperCase",
+                            MethodTypeDesc.of(CD_String, CD_LOCALE));
+                }
+                case "contains" -> {
+                    this.generate(args.getFirst());
+                    cb.invokevirtual(CD_String, "contains", MethodTypeDesc.of(CD_boolean, CD_CHAR_SEQUENCE));
+                }
+                case "startsWith", "endsWith" -> {
+                    this.generate(args.getFirst());
+                    cb.invokevirtual(CD_String, call.method(), MethodTypeDesc.of(CD_boolean, CD_String));
+                }
+                case "indexOf" -> {
+                    this.generate(args.getFirst());
+                    cb.invokevirtual(CD_String, "indexOf", MethodTypeDesc.of(CD_int, CD_String));
+                }
+                case "substring" -> {
+                    this.generate(args.get(0));
+                    if (args.size() > 1) this.generate(args.get(1));
+                    else cb.loadConstant(Integer.MAX_VALUE);
+                    cb.invokestatic(CD_RUNTIME, "substring", MethodTypeDesc.of(CD_String, CD_String, CD_int, CD_int));
+                }
+                case "replace" -> {
+                    this.generate(args.get(0));
+                    this.generate(args.get(1));
+                    cb.invokevirtual(CD_String, "replace", MethodTypeDesc.of(CD_String, CD_CHAR_SEQUENCE, CD_CHAR_SEQUENCE));
+                }
+                case "test" -> {
+                    this.pattern(this.regex(args.getFirst()));
+                    cb.invokestatic(CD_RUNTIME, "find", MethodTypeDesc.of(CD_boolean, CD_String, CD_PATTERN));
+                }
+                case "extract" -> {
+                    Pattern pattern = this.regex(args.getFirst());
+                    // 未指定捕获组时, 有捕获组取第一个, 否则取整个匹配; 指定的捕获组已在类型检查时校验
+                    int group = args.size() > 1
+                            ? (Integer) ((Literal) args.get(1)).value()
+                            : pattern.matcher("").groupCount() > 0 ? 1 : 0;
+                    this.pattern(pattern);
+                    cb.loadConstant(group);
+                    cb.invokestatic(CD_RUNTIME, "extract", MethodTypeDesc.of(CD_String, CD_String, CD_PATTERN, CD_int));
+                }
+                default -> throw new IllegalArgumentException("unsupported method: " + call.method());
+            }
+        }
+
+        private Pattern regex(Node node) {
+            return Pattern.compile((String) ((Literal) node).value());
+        }
+
+        /// 将预编译的正则放入常量数组, 生成读取代码: ((Pattern) this.constants[i])
+        private void pattern(Pattern pattern) {
+            int index = constants.size();
+            constants.add(pattern);
+            cb.aload(0)
+                    .getfield(CD_THIS, CONSTANTS, CD_CONSTANTS)
+                    .loadConstant(index)
+                    .aaload()
+                    .checkcast(CD_PATTERN);
+        }
+    }
+
+    /**
+     * 递归下降语法分析
+     */
+    static final class Parser {
+        private final String text;
+        private int pos = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parse() {
+            Node node = this.conditional();
+            this.skipSpaces();
+            if (pos < text.length()) throw this.error("unexpected '" + text.charAt(pos) + "'");
+            return node;
+        }
+
+        private Node conditional() {
+            Node condition = this.coalesce();
+            if (this.accept("?")) {
+                Node then = this.conditional();
+                this.require(":");
+                return new Conditional(condition, then, this.conditional());
+            }
+            return condition;
+        }
+
+        private Node coalesce() {
+            Node left = this.or();
+            while (this.accept("??")) left = new Binary("??", left, this.or());
+            return left;
+        }
+
+        private Node or() {
+            Node left = this.and();
+            while (this.accept("||")) left = new Binary("||", left, this.and());
+            return left;
+        }
+
+        private Node and() {
+            Node left = this.comparison();
+            while (this.accept("&&")) left = new Binary("&&", left, this.comparison());
+            return left;
+        }
+
+        private Node comparison() {
+            Node left = this.additive();
+            for (String operator : List.of("==", "!=", "<=", ">=", "<", ">")) {
+                if (this.accept(operator)) return new Binary(operator, left, this.additive());
+            }
+            return left;
+        }
+
+        private Node additive() {
+            Node left = this.unary();
+            while (true) {
+                if (this.accept("+")) left = new Binary("+", left, this.unary());
+                else if (this.accept("-")) left = new Binary("-", left, this.unary());
+                else return left;
+            }
+        }
+
+        private Node unary() {
+            if (this.accept("!")) return new Not(this.unary());
+            if (this.accept("-")) return new Binary("-", new Literal(Type.INT, 0), this.unary());
+            return this.postfix();
+        }
+
+        private Node postfix() {
+            Node node = this.primary();
+            while (this.accept(".")) {
+                String method = this.identifier();
+                this.require("(");
+                List<Node> args = new ArrayList<>();
+                if (!this.accept(")")) {
+                    do {
+                        args.add(this.conditional());
+                    } while (this.accept(","));
+                    this.require(")");
+                }
+                node = new Call(node, method, List.copyOf(args));
+            }
+            return node;
+        }
+
+        private Node primary() {
+            this.skipSpaces();
+            if (pos >= text.length()) throw this.error("unexpected end of expression");
+            char c = text.charAt(pos);
+            if (this.accept("(")) {
+                Node node = this.conditional();
+                this.require(")");
+                return node;
+            }
+            if (c == '"' || c == '\'') return new Literal(Type.STRING, this.string(c));
+            if (Character.isDigit(c)) {
+                int start = pos;
+                while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+                try {
+                    return new Literal(Type.INT, Integer.parseInt(text.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    throw this.error("integer out of range");
+                }
+            }
+            String name = this.identifier();
+            return switch (name) {
+                case "input" -> new Input();
+                case "true" -> new Literal(Type.BOOLEAN, true);
+                case "false" -> new Literal(Type.BOOLEAN, false);
+                case "null" -> new Literal(Type.NULL, null);
+                default -> throw this.error("unknown identifier '" + name + "'");
+            };
+        }
+
+        private String string(char quote) {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == quote) return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) break;
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case '\\', '"', '\'' -> sb.append(escaped);
+                    // 其余转义原样保留, 便于书写正则, 如 "\d{6}"
+                    default -> sb.append('\\').append(escaped);
+                }
+            }
+            throw this.error("unterminated string");
+        }
+
+        private String identifier() {
+            this.skipSpaces();
+            int start = pos;
+            while (pos < text.length() && Character.isJavaIdentifierPart(text.charAt(pos))) pos++;
+            if (start == pos) throw this.error("identifier expected");
+            return text.substring(start, pos);
+        }
+
+        private boolean accept(String token) {
+            this.skipSpaces();
+            if (!text.startsWith(token, pos)) return false;
+            // 避免把 "??" 识别为 "?", 把 "<=" 识别为 "<"
+            if (token.equals("?") && text.startsWith("??", pos)) return false;
+            if (token.equals("!") && text.startsWith("!=", pos)) return false;
+            pos += token.length();
+            return true;
+        }
+
+        private void require(String token) {
+            if (!this.accept(token)) throw this.error("'" + token + "' expected");
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + pos + ": " + text);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.zero.dynamic.invoker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 表达式规则执行器
+ *  - 针对单行的提取、判断规则, 注册时由 {@link ExpressionCompiler} 直接生成字节码, 不需要 javac, 也不需要 Context.
+ *  - 编译结果是无状态的 {@link Function}, 线程安全, 可直接并发调用.
+ *  - 重新注册或注销后, 旧规则的隐藏类不再被引用, 可被 GC 卸载.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Service
+public class ExpressionInvoker {
+    private final ExpressionCompiler compiler = new ExpressionCompiler();
+    private final ConcurrentHashMap<String, Function<String, String>> functions = new ConcurrentHashMap<>(16);
+
+    /**
+     * 注册表达式, 编译后缓存.
+     * @param id         规则ID
+     * @param expression 表达式
+     */
+    public void register(String id, String expression) {
+        long start = System.nanoTime();
+        Function<String, String> function = compiler.compile(expression.strip());
+        functions.put(id, function);
+        log.info("register expression success[{}] cost: {}us", id, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * 注销表达式
+     * @param id 规则ID
+     */
+    public void unregister(String id) {
+        functions.remove(id);
+    }
+
+    /**
+     * 执行表达式
+     *
+     * @param id      规则ID
+     * @param content 输入
+     * @return 表达式结果, 规则未注册或结果为 null 时为 null
+     */
+    public String call(String id, String content) {
+        Function<String, String> function = functions.get(id);
+        if (function == null) {
+            log.error("not found expression [{}]", id);
+            return null;
+        }
+        return function.apply(content);
+    }
+}
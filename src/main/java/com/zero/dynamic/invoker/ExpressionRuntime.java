@@ -0,0 +1,42 @@
+package com.zero.dynamic.invoker;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表达式运行时函数, 由 {@link ExpressionCompiler} 生成的字节码直接调用.
+ *
+ * @author Zero.
+ */
+public final class ExpressionRuntime {
+    private ExpressionRuntime() {
+    }
+
+    /**
+     * 是否包含匹配正则的子串, 内容为 null 时不匹配
+     */
+    public static boolean find(String content, Pattern pattern) {
+        return content != null && pattern.matcher(content).find();
+    }
+
+    /**
+     * 提取第一个匹配的指定捕获组
+     *
+     * @return 捕获组内容, 内容为 null 或未匹配时为 null
+     */
+    public static String extract(String content, Pattern pattern, int group) {
+        if (content == null) return null;
+        Matcher matcher = pattern.matcher(content);
+        return matcher.find() ? matcher.group(group) : null;
+    }
+
+    /**
+     * 截取子串, 下标越界时截断到有效范围
+     */
+    public static String substring(String content, int begin, int end) {
+        int length = content.length();
+        begin = Math.clamp(begin, 0, length);
+        end = Math.clamp(end, begin, length);
+        return content.substring(begin, end);
+    }
+}
@@ -0,0 +1,340 @@
+package com.zero.dynamic.invoker;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.proxy.ProxyArray;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 宿主内置函数: 以全局变量 {@code intrinsics} 注入每个脚本上下文 (JS、Python),
+ * 把正则扫描、HTML 实体解码、MIME 解码、哈希等热点循环交给 JIT 编译后的 Java 实现.
+ * <p>
+ * 上下文使用 {@link #ACCESS} 策略, 只有标注 {@link HostAccess.Export} 的方法可被脚本调用, 其余宿主能力仍然关闭.
+ * 所有方法无状态、线程安全, 多个上下文共享同一个实例.
+ * <pre>
+ * var code = intrinsics.extract(content, "&lt;b&gt;(\\d{6})&lt;/b&gt;", 1);
+ * </pre>
+ *
+ * @author Zero.
+ */
+public final class HostIntrinsics {
+    /// 注入的全局变量名
+    public static final String BINDING = "intrinsics";
+    /// 仅允许访问 {@link HostAccess.Export} 标注的成员, 同一引擎的所有上下文必须使用相同的策略
+    public static final HostAccess ACCESS = HostAccess.newBuilder().allowAccessAnnotatedBy(HostAccess.Export.class).build();
+    public static final HostIntrinsics INSTANCE = new HostIntrinsics();
+
+    /// 正则缓存上限, 超出时清空, 避免脚本动态拼接正则导致无限增长
+    private static final int MAX_PATTERNS = 1024;
+    /// 脚本提供的正则单次匹配的最长耗时, 宿主代码中的匹配无法被上下文中断, 回溯失控时由输入读取方抛出异常终止
+    private static final Duration MATCH_TIMEOUT = Duration.ofSeconds(1);
+    private static final Pattern ENTITY = Pattern.compile("&(#[xX][0-9a-fA-F]{1,6}|#[0-9]{1,7}|[a-zA-Z][a-zA-Z0-9]{1,31});");
+    private static final Pattern ENCODED_WORD = Pattern.compile("=\\?([^?]+)\\?([bBqQ])\\?([^?]*)\\?=(?:\\s+(?==\\?))?");
+    private static final Map<String, String> ENTITIES = Map.ofEntries(
+            Map.entry("amp", "&"), Map.entry("lt", "<"), Map.entry("gt", ">"), Map.entry("quot", "\""),
+            Map.entry("apos", "'"), Map.entry("nbsp", " "), Map.entry("copy", "©"), Map.entry("reg", "®"),
+            Map.entry("trade", "™"), Map.entry("hellip", "…"), Map.entry("mdash", "—"), Map.entry("ndash", "–"),
+            Map.entry("lsquo", "‘"), Map.entry("rsquo", "’"), Map.entry("ldquo", "“"), Map.entry("rdquo", "”"),
+            Map.entry("middot", "·"), Map.entry("bull", "•"), Map.entry("yen", "¥"), Map.entry("euro", "€"));
+    private final ConcurrentHashMap<PatternKey, Pattern> patterns = new ConcurrentHashMap<>(64);
+
+    /// 正则缓存键
+    private record PatternKey(String regex, String flags) {
+    }
+
+    private HostIntrinsics() {
+    }
+
+    /**
+     * 将内置函数注入上下文
+     *
+     * @param context  执行上下文
+     * @param language 语言ID
+     * @return context
+     */
+    public static Context install(Context context, String language) {
+        context.getBindings(language).putMember(BINDING, INSTANCE);
+        return context;
+    }
+
+    /**
+     * 是否包含匹配正则的子串
+     *
+     * @param regex Java 正则语法
+     * @param flags JS 正则标志: i、m、s
+     */
+    @HostAccess.Export
+    public boolean test(String input, String regex, String flags) {
+        return input != null && this.pattern(regex, flags).matcher(bounded(input)).find();
+    }
+
+    @HostAccess.Export
+    public boolean test(String input, String regex) {
+        return this.test(input, regex, "");
+    }
+
+    /**
+     * 提取第一个匹配的指定捕获组
+     *
+     * @return 捕获组内容, 未匹配时为 null
+     */
+    @HostAccess.Export
+    public String extract(String input, String regex, int group, String flags) {
+        if (input == null) return null;
+        Matcher matcher = this.pattern(regex, flags).matcher(bounded(input));
+        return matcher.find() ? matcher.group(group) : null;
+    }
+
+    @HostAccess.Export
+    public String extract(String input, String regex, int group) {
+        return this.extract(input, regex, group, "");
+    }
+
+    /**
+     * 按顺序尝试多个正则, 返回第一个匹配正则的第一个捕获组 (没有捕获组时返回整个匹配)
+     *
+     * @return 匹配结果, 均未匹配时为 null
+     */
+    @HostAccess.Export
+    public String extractFirst(String input, String... regexes) {
+        if (input == null) return null;
+        CharSequence bounded = bounded(input);
+        for (String regex : regexes) {
+            Matcher matcher = this.pattern(regex, "").matcher(bounded);
+            if (matcher.find()) return matcher.group(matcher.groupCount() > 0 ? 1 : 0);
+        }
+        return null;
+    }
+
+    /**
+     * 提取全部匹配的指定捕获组
+     *
+     * @return 数组, 未匹配时为空数组
+     */
+    @HostAccess.Export
+    public ProxyArray extractAll(String input, String regex, int group) {
+        List<Object> values = new ArrayList<>();
+        if (input != null) {
+            Matcher matcher = this.pattern(regex, "").matcher(bounded(input));
+            while (matcher.find()) values.add(matcher.group(group));
+        }
+        return ProxyArray.fromList(values);
+    }
+
+    /**
+     * 解码 HTML 实体: 常用命名实体、{@code &#123;}、{@code &#x1F;}, 无法识别的实体保持原样
+     */
+    @HostAccess.Export
+    public String decodeHtml(String input) {
+        if (input == null || input.indexOf('&') < 0) return input;
+        return ENTITY.matcher(input).replaceAll(match -> {
+            String entity = match.group(1);
+            String decoded;
+            if (entity.charAt(0) == '#') {
+                int codePoint = entity.length() > 1 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')
+                        ? Integer.parseInt(entity, 2, entity.length(), 16)
+                        : Integer.parseInt(entity, 1, entity.length(), 10);
+                decoded = Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : match.group();
+            } else {
+                decoded = ENTITIES.getOrDefault(entity, match.group());
+            }
+            return Matcher.quoteReplacement(decoded);
+        });
+    }
+
+    /**
+     * 去除 HTML 标签, 并解码 HTML 实体
+     */
+    @HostAccess.Export
+    public String stripTags(String input) {
+        if (input == null) return null;
+        return this.decodeHtml(this.pattern("<[^>]*>", "").matcher(input).replaceAll(""));
+    }
+
+    /**
+     * Base64 解码, 忽略换行等非 Base64 字符 (MIME 正文)
+     *
+     * @param charset 解码后的字符集, 如 UTF-8、GBK
+     */
+    @HostAccess.Export
+    public String decodeBase64(String input, String charset) {
+        if (input == null) return null;
+        return new String(Base64.getMimeDecoder().decode(input), Charset.forName(charset));
+    }
+
+    @HostAccess.Export
+    public String decodeBase64(String input) {
+        return this.decodeBase64(input, "UTF-8");
+    }
+
+    /**
+     * Quoted-Printable 解码 (RFC 2045), 支持软换行 {@code =\r\n}
+     *
+     * @param charset 解码后的字符集, 如 UTF-8、GBK
+     */
+    @HostAccess.Export
+    public String decodeQuotedPrintable(String input, String charset) {
+        if (input == null) return null;
+        return new String(quotedPrintable(input, false), Charset.forName(charset));
+    }
+
+    @HostAccess.Export
+    public String decodeQuotedPrintable(String input) {
+        return this.decodeQuotedPrintable(input, "UTF-8");
+    }
+
+    /**
+     * 解码邮件头中的编码词 (RFC 2047), 如 {@code =?UTF-8?B?5L2g5aW9?=}, 相邻编码词之间的空白被忽略
+     */
+    @HostAccess.Export
+    public String decodeMimeHeader(String input) {
+        if (input == null || !input.contains("=?")) return input;
+        return ENCODED_WORD.matcher(input).replaceAll(match -> {
+            Charset charset = Charset.forName(match.group(1));
+            byte[] bytes = Character.toUpperCase(match.group(2).charAt(0)) == 'B'
+                    ? Base64.getMimeDecoder().decode(match.group(3))
+                    : quotedPrintable(match.group(3), true);
+            return Matcher.quoteReplacement(new String(bytes, charset));
+        });
+    }
+
+    /**
+     * SHA-256 摘要, UTF-8 编码后计算
+     *
+     * @return 小写十六进制
+     */
+    @HostAccess.Export
+    public String sha256(String input) {
+        return digest("SHA-256", input);
+    }
+
+    /**
+     * MD5 摘要, UTF-8 编码后计算
+     *
+     * @return 小写十六进制
+     */
+    @HostAccess.Export
+    public String md5(String input) {
+        return digest("MD5", input);
+    }
+
+    private Pattern pattern(String regex, String flags) {
+        PatternKey key = new PatternKey(regex, flags);
+        Pattern pattern = patterns.get(key);
+        if (pattern != null) return pattern;
+        if (patterns.size() >= MAX_PATTERNS) patterns.clear();
+        return patterns.computeIfAbsent(key, k -> Pattern.compile(regex, PatternSetInvoker.flags(flags)));
+    }
+
+    /**
+     * 为脚本提供的正则包装输入, 匹配超时或线程被中断时终止匹配
+     */
+    private static CharSequence bounded(String input) {
+        return new DeadlineInput(input, System.nanoTime() + MATCH_TIMEOUT.toNanos());
+    }
+
+    /**
+     * 带截止时间的输入: 正则引擎每读取一定数量的字符检查一次截止时间与中断状态, 超出时抛出异常.
+     */
+    private static final class DeadlineInput implements CharSequence {
+        /// 每读取多少个字符检查一次
+        private static final int CHECK_INTERVAL = 4096;
+        private final String input;
+        private final long deadline;
+        private int reads;
+
+        DeadlineInput(String input, long deadline) {
+            this.input = input;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads >= CHECK_INTERVAL) {
+                reads = 0;
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("regex match interrupted");
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("regex match timed out after " + MATCH_TIMEOUT.toMillis() + "ms");
+                }
+            }
+            return input.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return input.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return input.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return input;
+        }
+    }
+
+    /**
+     * Quoted-Printable 解码为字节
+     *
+     * @param header 编码词 (RFC 2047 Q 编码) 中 '_' 表示空格
+     */
+    private static byte[] quotedPrintable(String input, boolean header) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length());
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == '=' && i + 1 < length) {
+                char next = input.charAt(i + 1);
+                // 软换行
+                if (next == '\r' || next == '\n') {
+                    i += next == '\r' && i + 2 < length && input.charAt(i + 2) == '\n' ? 2 : 1;
+                    continue;
+                }
+                int high = Character.digit(next, 16);
+                int low = i + 2 < length ? Character.digit(input.charAt(i + 2), 16) : -1;
+                if (high >= 0 && low >= 0) {
+                    out.write(high << 4 | low);
+                    i += 2;
+                    continue;
+                }
+            }
+            if (header && c == '_') {
+                out.write(' ');
+            } else if (c < 0x80) {
+                out.write(c);
+            } else {
+                // 非 ASCII 字符原样按 UTF-8 写出
+                out.writeBytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(String algorithm, String input) {
+        try {
+            byte[] hash = MessageDigest.getInstance(algorithm).digest(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
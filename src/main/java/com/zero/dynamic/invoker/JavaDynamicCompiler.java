@@ -1,5 +1,6 @@
 package com.zero.dynamic.invoker;
 
+import com.zero.dynamic.jfr.JavaCompileEvent;
 import lombok.Data;
 import lombok.Getter;
 import lombok.experimental.Accessors;
@@ -124,14 +125,18 @@ public class JavaDynamicCompiler {
     /// @param cache 是否使用缓存
     /// @return {@link CompileResult} 编译结果
     public CompileResult compile(String className, String sourceCode, boolean cache) {
+        JavaCompileEvent event = new JavaCompileEvent(className);
+        event.begin();
         // 是否已加载过，从缓存获取Class
         if (cache && classCache.containsKey(className)) {
+            event.commit(byteCodeCache.get(className), true);
             return new CompileResult(true, className, classCache.get(className), null);
         }
         try {
             // 编译 & 加载
-            return this.doCompile(className, sourceCode, cache);
+            return this.doCompile(className, sourceCode, cache, event);
         }catch (Exception e) {
+            event.commit(null, false);
             return new CompileResult(false, className, null, e.getMessage());
         }
     }
@@ -140,7 +145,8 @@ public class JavaDynamicCompiler {
     /// @param className  类名
     /// @param sourceCode 源码
     /// @param cache      是否缓存机制
-    private CompileResult doCompile(String className, String sourceCode, boolean cache) throws Exception {
+    /// @param event      编译事件, 编译结束时提交
+    private CompileResult doCompile(String className, String sourceCode, boolean cache, JavaCompileEvent event) throws Exception {
         // step1: 获取Java文件管理器
         try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)){
             // 构建自定义的内存源文件管理器，用于 JavaFileObject 的创建和保存
@@ -157,7 +163,10 @@ public class JavaDynamicCompiler {
                 // step5: 编译任务成功
                 // 读取编译后的字节码，进行类加载、实例化。
                 ByteCodeJavaFileObject classFile = classManager.getClassFiles().get(className);
-                if (classFile == null) return new CompileResult(false, className, null, "No bytecode generated");
+                if (classFile == null) {
+                    event.commit(null, false);
+                    return new CompileResult(false, className, null, "No bytecode generated");
+                }
                 // 获取源文件和字节码
                 byte[] byteCode = classFile.getBytes();
                 // 类加载, 获取Class对象
@@ -167,6 +176,7 @@ public class JavaDynamicCompiler {
                     classCache.put(className, clazz);
                     byteCodeCache.put(className, byteCode);
                 }
+                event.commit(byteCode, false);
                 return new CompileResult(true, className, clazz, null);
             }else {
                 // step6 编译失败，收集失败信息
@@ -174,6 +184,7 @@ public class JavaDynamicCompiler {
                 for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
                     err.append(diagnostic.toString()).append("\n");
                 }
+                event.commit(null, false);
                 return new CompileResult(false, className, null, err.toString());
             }
 
@@ -1,18 +1,37 @@
 package com.zero.dynamic.invoker;
 
+import com.zero.dynamic.jfr.ContextCreateEvent;
+import com.zero.dynamic.jfr.ScriptExecuteEvent;
+import com.zero.dynamic.pool.CallCoalescer;
+import com.zero.dynamic.pool.FairScheduler;
+import com.zero.dynamic.pool.RecyclePolicy;
+import com.zero.dynamic.pool.SharedContextPool;
+import com.zero.dynamic.pool.WorkerPool;
+import com.zero.dynamic.pool.WorkerPoolInvoke;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import com.zero.dynamic.pool.impl.InvokerJSWork;
+import com.zero.dynamic.pool.impl.InvokerPipelineWorker;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.*;
 import org.graalvm.polyglot.io.IOAccess;
+import org.graalvm.polyglot.proxy.ProxyArray;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.ZoneId;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * JS 执行器
@@ -34,9 +53,94 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class JavaScriptInvoker {
     private final String LANGUAGE_ID = "js";
+    @Getter
     private final Engine engine = Engine.create(LANGUAGE_ID);
     private final ConcurrentHashMap<String, Source> sources = new ConcurrentHashMap<>(16);
     private final ThreadLocal<Context> CTX = ThreadLocal.withInitial(this::getContext);
+    /// 上下文对象池注册表, 脚本对象池 key: js:内容摘要#函数名, 流水线对象池 key: js-pipeline:流水线ID
+    private final WorkerPoolRegistry registry;
+    /// 按内容去重的脚本, key: 脚本内容标识 (内容摘要 + 影响对象池的执行选项)
+    private final ConcurrentHashMap<String, SharedScript> scripts = new ConcurrentHashMap<>(16);
+    /// 脚本ID -> 引用的脚本
+    private final ConcurrentHashMap<String, SharedScript> scriptRefs = new ConcurrentHashMap<>(16);
+    /// 注册、注销串行执行, 保证引用计数与对象池的释放一致
+    private final ReentrantLock registerLock = new ReentrantLock();
+    /// 流水线定义, key: 流水线ID
+    private final ConcurrentHashMap<String, List<InvokerPipelineWorker.Stage>> pipelines = new ConcurrentHashMap<>(16);
+    /// 每个对象池的上下文数量
+    @org.springframework.beans.factory.annotation.Value("${script.pool.size:4}")
+    private int poolSize = 4;
+    /// 实例回收: 执行次数上限, 小于等于 0 表示不限制
+    @org.springframework.beans.factory.annotation.Value("${script.recycle.max-calls:0}")
+    private long recycleMaxCalls = 0;
+    /// 实例回收: 存活时长上限 (分钟), 小于等于 0 表示不限制
+    @org.springframework.beans.factory.annotation.Value("${script.recycle.max-age-minutes:0}")
+    private long recycleMaxAgeMinutes = 0;
+    /// 实例回收: 执行期间累计分配的内存上限 (MB), 小于等于 0 表示不限制
+    @org.springframework.beans.factory.annotation.Value("${script.recycle.max-allocated-mb:0}")
+    private long recycleMaxAllocatedMb = 0;
+    /// 实例回收: 替代实例的预热次数
+    @org.springframework.beans.factory.annotation.Value("${script.recycle.warmup-calls:3}")
+    private int recycleWarmupCalls = 3;
+    /// 调用合并的时间窗口 (微秒), 小于等于 0 表示不合并
+    @org.springframework.beans.factory.annotation.Value("${script.coalesce.window-micros:0}")
+    private long coalesceWindowMicros = 0;
+    /// 调用合并的单批次最大调用数
+    @org.springframework.beans.factory.annotation.Value("${script.coalesce.max-batch:32}")
+    private int coalesceMaxBatch = 32;
+    /// 调用合并器, 未启用时为 null
+    @Getter
+    private volatile CallCoalescer coalescer;
+    /// callAny 的任务线程数, 所有请求共用, 超出时任务排队
+    @org.springframework.beans.factory.annotation.Value("${script.call-any.threads:16}")
+    private int callAnyThreads = 16;
+    /// callAny 的任务线程池, 首次调用时创建
+    private volatile ExecutorService callAnyExecutor;
+    /// 全局同时执行脚本的数量上限, 小于等于 0 表示不调度
+    @org.springframework.beans.factory.annotation.Value("${script.scheduler.max-concurrency:0}")
+    private int schedulerMaxConcurrency = 0;
+    /// 权重为 1 的租户每轮获得的执行时间额度 (微秒)
+    @org.springframework.beans.factory.annotation.Value("${script.scheduler.quantum-micros:1000}")
+    private long schedulerQuantumMicros = 1000;
+    /// 加权公平调度器, 以脚本ID (流水线ID) 作为租户, 未启用时为 null
+    @Getter
+    private volatile FairScheduler scheduler;
+    /// 共享上下文池的上下文数量, 小于等于 0 表示每个脚本函数使用独占的对象池
+    @org.springframework.beans.factory.annotation.Value("${script.shared.contexts:0}")
+    private int sharedContexts = 0;
+    /// 共享上下文池中单个上下文缓存的函数句柄上限
+    @org.springframework.beans.factory.annotation.Value("${script.shared.max-functions:64}")
+    private int sharedMaxFunctions = 64;
+    /// 共享上下文池, 未启用时为 null
+    @Getter
+    private volatile SharedContextPool sharedPool;
+    /// 共享上下文中批量调用辅助函数的缓存标识
+    private static final String BATCH_KEY = "#batch";
+
+    /// 脚本执行结果
+    public record ScriptResult(String id, String value) {
+    }
+
+    /// 流水线执行结果, stages 仅在需要统计耗时时返回
+    public record PipelineResult(String value, List<StageTiming> stages) {
+    }
+
+    /// 流水线阶段耗时
+    public record StageTiming(String id, String function, long nanos) {
+    }
+
+    /// 脚本去重统计
+    /// @param ids     已注册的脚本ID数量
+    /// @param scripts 不同的脚本数量 (即 Source 与对象池的份数)
+    public record ScriptStats(int ids, int scripts) {
+    }
+
+    /// 内容相同的脚本共享的 Source 与对象池, 最后一个引用的脚本ID注销后释放
+    /// @param pool     对象池与 Source 名称: 内容标识摘要, 与脚本ID无关, 任一引用的脚本ID注销后仍然有效
+    /// @param isolated isolate 模式的脚本独占的引擎, 否则为 null; 对象池只从这里获取引擎, 与脚本内容始终对应
+    private record SharedScript(String key, String pool, Source source, ScriptOptions option, Engine isolated,
+                                AtomicInteger refs) {
+    }
 
     /**
      * 注册脚本内容，预编译为Source进行缓存.
@@ -44,12 +148,133 @@ public class JavaScriptInvoker {
      * @param script    脚本内容
      */
     public void register(String id, String script){
-        // 预编译脚本,并且缓存起来
-        Source source = this.compileScript(script);
-        log.info("engine sources size; {}", sources.size());
-        CTX.get().eval(source);
-        sources.put(id, source);
-        log.info("register script success[{}]", id);
+        this.register(id, script, ScriptOptions.DEFAULT);
+    }
+
+    /**
+     * 注册脚本内容，预编译为Source进行缓存.
+     * @param id        脚本ID
+     * @param script    脚本内容
+     * @param option    执行选项, isolate 模式下脚本的上下文运行在独立的堆中
+     */
+    public void register(String id, String script, ScriptOptions option){
+        String key = contentKey(id, script, option);
+        registerLock.lock();
+        try {
+            SharedScript current = scriptRefs.get(id);
+            if (current != null && current.key().equals(key)) {
+                // 内容与选项均未变化, 保留现有对象池
+                log.info("register script unchanged[{}]", id);
+                return;
+            }
+            SharedScript shared = scripts.get(key);
+            if (shared == null) {
+                Engine isolated = null;
+                String pool = HostIntrinsics.INSTANCE.sha256(key).substring(0, 16);
+                // 预编译脚本,并且缓存起来, 以内容摘要作为 Source 名称, 采样分析时再映射回请求的脚本ID
+                Source source = this.compileScript(pool, script);
+                if (option.isolate()) {
+                    isolated = this.createIsolatedEngine(option);
+                    // 在 isolate 中校验脚本, 不在应用堆中执行
+                    try (Context ctx = this.getContext(isolated)) {
+                        ctx.eval(source);
+                    } catch (RuntimeException e) {
+                        isolated.close();
+                        throw e;
+                    }
+                } else {
+                    CTX.get().eval(source);
+                }
+                shared = new SharedScript(key, pool, source, option, isolated, new AtomicInteger());
+                scripts.put(key, shared);
+            }
+            shared.refs().incrementAndGet();
+            sources.put(id, shared.source());
+            // 新的引擎随脚本一起生效, 之后才释放旧内容: 并发创建的对象池要么使用旧脚本与旧引擎, 要么使用新脚本与新引擎
+            SharedScript previous = scriptRefs.put(id, shared);
+            if (previous != null) {
+                // 重新注册时释放旧内容的引用, 无引用时关闭其对象池与引擎; 引用该脚本的流水线下次调用时重建
+                this.release(previous);
+                this.invalidatePipelines(id);
+            }
+            log.info("register script success[{}] pool: {}, isolate: {}, shared by: {}, distinct scripts: {}",
+                    id, shared.pool(), option.isolate(), shared.refs().get(), scripts.size());
+        } finally {
+            registerLock.unlock();
+        }
+    }
+
+    /**
+     * 注销脚本, 释放其对象池以及引用该脚本的流水线.
+     * @param id 脚本ID
+     */
+    public void unregister(String id) {
+        registerLock.lock();
+        try {
+            SharedScript shared = scriptRefs.remove(id);
+            if (shared == null) return;
+            sources.remove(id);
+            this.release(shared);
+            this.invalidatePipelines(id);
+            // 与流水线注册互斥, 避免注销期间注册引用该脚本的流水线
+            pipelines.entrySet().removeIf(entry -> entry.getValue().stream().anyMatch(stage -> stage.id().equals(id)));
+        } finally {
+            registerLock.unlock();
+        }
+        Optional.ofNullable(scheduler).ifPresent(current -> current.remove(id));
+        log.info("unregister script success[{}]", id);
+    }
+
+    /**
+     * 脚本去重统计
+     */
+    public ScriptStats scriptStats() {
+        return new ScriptStats(scriptRefs.size(), scripts.size());
+    }
+
+    /**
+     * 脚本 Source 的名称 (内容相同的脚本共享同一个 Source, 名称为内容摘要), 用于采样分析时定位.
+     *
+     * @return 脚本未注册时为 null
+     */
+    public String sourceName(String id) {
+        Source source = sources.get(id);
+        return source == null ? null : source.getName();
+    }
+
+    /**
+     * 对象池注册表统计信息
+     */
+    public WorkerPoolRegistry.Stats stats() {
+        return registry.stats();
+    }
+
+    /**
+     * 释放一个脚本ID对内容的引用, 最后一个引用释放时关闭该内容的对象池、共享上下文中的函数句柄, 以及 isolate 模式独占的引擎.
+     */
+    private void release(SharedScript shared) {
+        if (shared.refs().decrementAndGet() > 0) return;
+        scripts.remove(shared.key());
+        Predicate<String> keys = poolKey -> poolKey.startsWith(LANGUAGE_ID + ":" + shared.pool() + "#");
+        // 共享上下文中缓存的函数句柄同样以对象池标识为 key
+        Optional.ofNullable(sharedPool).ifPresent(pool -> pool.evict(keys));
+        CompletableFuture<Void> closed = registry.invalidate(keys);
+        // 使用中的实例归还并关闭后才能关闭引擎, 不阻塞注册/注销
+        if (shared.isolated() != null) closed.thenRun(shared.isolated()::close).exceptionally(e -> {
+            log.warn("isolated engine close failed [{}]", shared.pool(), e);
+            return null;
+        });
+    }
+
+    /**
+     * 失效引用该脚本的流水线对象池.
+     */
+    private void invalidatePipelines(String id) {
+        pipelines.forEach((pipelineId, stages) -> {
+            if (stages.stream().anyMatch(stage -> stage.id().equals(id))) {
+                registry.invalidate(pipelineKey(pipelineId)::equals);
+            }
+        });
     }
 
     /**
@@ -75,16 +300,24 @@ public class JavaScriptInvoker {
 //        }
 
         log.info("engine sources size; {}", sources.size());
-        // TODO 为了保险起见，建议每次使用新的 Context 避免不必要的问题
-        Value ret = Optional.ofNullable(sources.get(id)).map(source -> {
-            // 编译脚本
-            CTX.get().eval(source);
-            // 获取脚本函数
-            Value func = CTX.get().getBindings(LANGUAGE_ID).getMember(funcName);
-            // 执行脚本函数
-            return func.execute(args);
-        }).orElse(null);
-        return null == ret ? null : ret.toString();
+        ScriptExecuteEvent event = new ScriptExecuteEvent(LANGUAGE_ID, id, funcName, args);
+        event.begin();
+        try {
+            // TODO 为了保险起见，建议每次使用新的 Context 避免不必要的问题
+            Value ret = Optional.ofNullable(sources.get(id)).map(source -> {
+                // 编译脚本
+                CTX.get().eval(source);
+                // 获取脚本函数
+                Value func = CTX.get().getBindings(LANGUAGE_ID).getMember(funcName);
+                // 执行脚本函数
+                return func.execute(args);
+            }).orElse(null);
+            event.success();
+            return null == ret ? null : ret.toString();
+        } finally {
+            // 执行失败时同样记录事件
+            event.commit();
+        }
 
 
         // 优化1: 预编译为 Source
@@ -107,14 +340,512 @@ public class JavaScriptInvoker {
 //        }
     }
 
+    /**
+     * 从对象池中取出一个上下文执行脚本函数, 可多线程并发调用.
+     *
+     * @param id       脚本ID
+     * @param funcName 函数名
+     * @param args     函数参数
+     * @return 函数返回值, 脚本未注册或返回 null 时为 null
+     */
+    public String callPooled(String id, String funcName, String args) throws InterruptedException {
+        if (!sources.containsKey(id)) {
+            log.error("not found source [{}]", id);
+            return null;
+        }
+        ScriptExecuteEvent event = new ScriptExecuteEvent(LANGUAGE_ID, id, funcName, args);
+        event.begin();
+        try {
+            String ret = this.invokePooled(id, funcName, args);
+            event.success();
+            return ret;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private String invokePooled(String id, String funcName, String args) throws InterruptedException {
+        // 函数名会拼接进共享上下文中加载的脚本, 也是对象池的 key, 在任何加载之前校验
+        InvokerJSWork.checkFunctionName(funcName);
+        // 整个调用使用同一份脚本, 并发重新注册时不会混用新旧脚本的对象池与引擎
+        SharedScript script = this.script(id);
+        String key = poolKey(script, funcName);
+        CallCoalescer current = coalescer;
+        if (current != null) {
+            return current.submit(key, args, calls -> this.callBatch(key, script, id, funcName, calls));
+        }
+        SharedContextPool shared = this.sharedPool(script);
+        if (shared != null) {
+            try (FairScheduler.Permit ignored = this.schedule(id);
+                 SharedContextPool.Lease lease = shared.checkout(key)) {
+                Value func = this.sharedFunction(lease, key, script, funcName);
+                Value ret = race(lease.context()::interrupt, () -> func.execute(args));
+                return ret.isNull() ? null : ret.toString();
+            }
+        }
+        try (FairScheduler.Permit ignored = this.schedule(id);
+             WorkerPoolInvoke worker = registry.checkout(key, () -> this.createPool(script, funcName, poolSize))) {
+            Value ret = race(worker.<InvokerJSWork>unwrap()::interrupt, () -> worker.call(args));
+            return ret.isNull() ? null : ret.toString();
+        }
+    }
+
+    /**
+     * 当前线程属于 {@link #callAny} 的任务时, 执行期间登记上下文, 以便结果确定后中断.
+     */
+    private static <T> T race(Race.Interruptible target, Supplier<T> action) {
+        Race race = RACE.get();
+        return race == null ? action.get() : race.run(target, action);
+    }
+
+    /**
+     * 启用共享上下文池: 所有脚本共享固定数量的上下文, 上下文数量不再随脚本数量增长.
+     * isolate 模式的脚本仍使用独占的对象池.
+     *
+     * @param contexts     上下文数量
+     * @param maxFunctions 单个上下文缓存的函数句柄上限
+     */
+    public void enableSharedContexts(int contexts, int maxFunctions) {
+        SharedContextPool previous = this.sharedPool;
+        this.sharedPool = new SharedContextPool(contexts, maxFunctions, this::getContext);
+        if (previous != null) previous.close();
+        // 释放各脚本函数独占的对象池, 流水线对象池不受影响
+        registry.invalidate(key -> key.startsWith(LANGUAGE_ID + ":"));
+        log.info("shared context pool enabled, contexts: {}, max functions per context: {}", contexts, maxFunctions);
+    }
+
+    /**
+     * 脚本使用的共享上下文池, 未启用或脚本为 isolate 模式时返回 null
+     */
+    private SharedContextPool sharedPool(SharedScript script) {
+        SharedContextPool shared = this.sharedPool;
+        return shared == null || script.isolated() != null ? null : shared;
+    }
+
+    /**
+     * 从共享上下文中获取脚本函数, 未加载或脚本已重新注册时在该上下文中加载.
+     */
+    private Value sharedFunction(SharedContextPool.Lease lease, String key, SharedScript script, String funcName) {
+        Source source = script.source();
+        // 以 Source 作为版本, 重新注册后旧的函数句柄自动失效
+        return lease.function(key, source, context ->
+                InvokerJSWork.loadScoped(context, source.getName(), source.getCharacters().toString(), funcName));
+    }
+
+    /**
+     * 启用加权公平调度: 所有脚本执行先申请执行许可, 按租户权重分配执行时间.
+     *
+     * @param maxConcurrency 全局同时执行数上限
+     * @param quantum        权重为 1 的租户每轮获得的执行时间额度
+     */
+    public void enableScheduling(int maxConcurrency, Duration quantum) {
+        this.scheduler = new FairScheduler(maxConcurrency, quantum.toNanos());
+        log.info("fair scheduling enabled, max concurrency: {}, quantum: {}", maxConcurrency, quantum);
+    }
+
+    /**
+     * 申请脚本的执行许可, 未启用调度时返回 null
+     */
+    private FairScheduler.Permit schedule(String tenant) throws InterruptedException {
+        FairScheduler current = scheduler;
+        return current == null ? null : current.acquire(tenant);
+    }
+
+    /**
+     * 启用调用合并: 同一脚本函数在时间窗口内的并发调用合并为一次批量调用, 在同一个上下文中执行.
+     *
+     * @param window   合并等待的时间窗口, 即每次调用最多增加的延迟
+     * @param maxBatch 单批次最大调用数, 达到后立即执行
+     */
+    public void enableCoalescing(Duration window, int maxBatch) {
+        this.coalescer = new CallCoalescer(window, maxBatch);
+        log.info("call coalescing enabled, window: {}, max batch: {}", window, maxBatch);
+    }
+
+    /**
+     * 关闭调用合并
+     */
+    public void disableCoalescing() {
+        this.coalescer = null;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (coalesceWindowMicros > 0 && coalesceMaxBatch > 1) {
+            this.enableCoalescing(Duration.ofNanos(coalesceWindowMicros * 1000), coalesceMaxBatch);
+        }
+        if (sharedContexts > 0) {
+            this.enableSharedContexts(sharedContexts, sharedMaxFunctions);
+        }
+        if (schedulerMaxConcurrency > 0) {
+            this.enableScheduling(schedulerMaxConcurrency, Duration.ofNanos(schedulerQuantumMicros * 1000));
+        }
+    }
+
+    /**
+     * 获取一个上下文执行整批调用, 逐个设置各调用方的结果.
+     */
+    private void callBatch(String key, SharedScript script, String id, String funcName, List<CallCoalescer.Call> calls)
+            throws InterruptedException {
+        List<String> args = new ArrayList<>(calls.size());
+        for (CallCoalescer.Call call : calls) args.add(call.getArgs());
+        // 整批调用只申请一次执行许可
+        SharedContextPool shared = this.sharedPool(script);
+        if (shared != null) {
+            try (FairScheduler.Permit ignored = this.schedule(id);
+                 SharedContextPool.Lease lease = shared.checkout(key)) {
+                Value func = this.sharedFunction(lease, key, script, funcName);
+                Value batch = lease.function(BATCH_KEY, InvokerJSWork.BATCH, context -> context.eval(InvokerJSWork.BATCH));
+                this.completeBatch(id, calls, batch.execute(func, ProxyArray.fromList(new ArrayList<>(args))));
+            }
+            return;
+        }
+        try (FairScheduler.Permit ignored = this.schedule(id);
+             WorkerPoolInvoke worker = registry.checkout(key, () -> this.createPool(script, funcName, poolSize))) {
+            this.completeBatch(id, calls, worker.<InvokerJSWork>unwrap().callBatch(args));
+        }
+    }
+
+    /**
+     * 按批量调用的返回值 ([结果数组, 错误信息数组]) 设置各调用方的结果
+     */
+    private void completeBatch(String id, List<CallCoalescer.Call> calls, Value ret) {
+        Value results = ret.getArrayElement(0);
+        Value errors = ret.getArrayElement(1);
+        for (int i = 0; i < calls.size(); i++) {
+            Value error = errors.getArrayElement(i);
+            if (!error.isNull()) {
+                calls.get(i).fail(new RuntimeException("script [" + id + "] execute failed: " + error.asString()));
+                continue;
+            }
+            Value value = results.getArrayElement(i);
+            calls.get(i).complete(value.isNull() ? null : value.toString());
+        }
+    }
+
+    /**
+     * 并发执行多个脚本, 返回第一个非 null 的结果, 其余任务随即取消.
+     * <p>
+     * 各脚本在调用器持有的固定大小的平台线程池中执行 ({@code script.call-any.threads}, 脚本执行是无法让出的 CPU 密集任务,
+     * 虚拟线程会占满载体线程, 使其他任务无法执行), 使用各自对象池中的上下文; 得到结果后不等待其余任务结束:
+     * 排队和等待上下文的任务被取消, 已进入脚本执行的任务在调用线程中通过 {@link Context#interrupt} 中断, 上下文归还后继续使用.
+     * 合并调用 (调用合并开启时) 与其他调用方共享一次批量执行, 不会被中断, 其结果被丢弃.
+     *
+     * @param ids      脚本ID列表
+     * @param funcName 函数名
+     * @param args     函数参数
+     * @return 第一个匹配的结果, 全部未匹配时为 null
+     */
+    public ScriptResult callAny(List<String> ids, String funcName, String args) throws InterruptedException {
+        Race race = new Race();
+        List<Callable<ScriptResult>> tasks = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            tasks.add(() -> {
+                RACE.set(race);
+                try {
+                    String ret = this.callPooled(id, funcName, args);
+                    if (ret == null) throw new NoSuchElementException(id);
+                    return new ScriptResult(id, ret);
+                } finally {
+                    // 线程池复用线程, 不能遗留上一次竞争
+                    RACE.remove();
+                }
+            });
+        }
+        try {
+            // invokeAny 返回前取消其余任务: 排队中的任务不再执行, 等待上下文的任务被中断
+            return this.callAnyExecutor().invokeAny(tasks);
+        } catch (ExecutionException e) {
+            // 所有脚本均未匹配或执行失败
+            log.debug("no script matched {}", ids, e.getCause());
+            return null;
+        } finally {
+            // 中断仍在执行的脚本, 使线程与上下文尽快归还
+            race.cancel();
+        }
+    }
+
+    /**
+     * callAny 的任务线程池: 固定数量的平台守护线程, 空闲时回收
+     */
+    private ExecutorService callAnyExecutor() {
+        ExecutorService executor = this.callAnyExecutor;
+        if (executor != null) return executor;
+        synchronized (this) {
+            if (this.callAnyExecutor == null) {
+                int threads = Math.max(1, callAnyThreads);
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                        Thread.ofPlatform().name("call-any-", 0).daemon().factory());
+                pool.allowCoreThreadTimeOut(true);
+                this.callAnyExecutor = pool;
+            }
+            return this.callAnyExecutor;
+        }
+    }
+
+    /// {@link #callAny} 任务所属的竞争, 仅在任务线程中设置
+    private static final ThreadLocal<Race> RACE = new ThreadLocal<>();
+
+    /**
+     * {@link #callAny} 的一次竞争: 登记各任务正在执行脚本的上下文, 结果确定后中断其余任务.
+     * 仅在任务持有上下文期间中断, 上下文归还后不会再被中断, 不影响其他调用方.
+     */
+    private static final class Race {
+        /// 等待单个上下文中断完成的超时时间
+        private static final Duration INTERRUPT_TIMEOUT = Duration.ofSeconds(5);
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Interruptible> running = new ArrayList<>();
+        private boolean cancelled = false;
+
+        /// 可中断的脚本执行上下文
+        interface Interruptible {
+            void interrupt(Duration timeout) throws TimeoutException;
+        }
+
+        <T> T run(Interruptible target, Supplier<T> action) {
+            lock.lock();
+            try {
+                if (cancelled) throw new CancellationException("call any already completed");
+                running.add(target);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                return action.get();
+            } finally {
+                // 被中断的任务在中断完成前不会归还上下文
+                lock.lock();
+                try {
+                    running.remove(target);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                for (Interruptible target : running) {
+                    try {
+                        target.interrupt(INTERRUPT_TIMEOUT);
+                    } catch (TimeoutException | RuntimeException e) {
+                        log.warn("interrupt losing script failed", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 并发执行多个脚本, 按 ID 顺序返回全部结果.
+     *
+     * @param ids      脚本ID列表
+     * @param funcName 函数名
+     * @param args     函数参数
+     * @return 每个脚本的执行结果, 未匹配或执行失败时 value 为 null
+     */
+    public List<ScriptResult> callAll(List<String> ids, String funcName, String args) throws InterruptedException {
+        List<Callable<ScriptResult>> tasks = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            tasks.add(() -> new ScriptResult(id, this.callPooled(id, funcName, args)));
+        }
+        List<ScriptResult> results = new ArrayList<>(ids.size());
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ScriptResult>> futures = scope.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.error("script [{}] execute failed", ids.get(i), e.getCause());
+                    results.add(new ScriptResult(ids.get(i), null));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 注册流水线: 多个脚本函数依次执行, 上一阶段的返回值作为下一阶段的入参.
+     *
+     * @param id     流水线ID
+     * @param stages 流水线阶段, 引用的脚本必须已注册
+     */
+    public void registerPipeline(String id, List<InvokerPipelineWorker.Stage> stages) {
+        if (stages == null || stages.isEmpty()) {
+            throw new IllegalArgumentException("pipeline stages is empty");
+        }
+        registerLock.lock();
+        try {
+            // 校验与保存在同一把锁下, 与脚本注销互斥
+            for (InvokerPipelineWorker.Stage stage : stages) {
+                if (!sources.containsKey(stage.id())) {
+                    throw new IllegalArgumentException("pipeline script not registered: " + stage.id());
+                }
+                InvokerJSWork.checkFunctionName(stage.function());
+            }
+            pipelines.put(id, List.copyOf(stages));
+            registry.invalidate(pipelineKey(id)::equals);
+        } finally {
+            registerLock.unlock();
+        }
+        log.info("register pipeline success[{}] stages: {}", id, stages);
+    }
+
+    /**
+     * 在同一个上下文中执行整个流水线, 中间结果不离开脚本环境.
+     *
+     * @param id     流水线ID
+     * @param args   第一阶段的入参
+     * @param timing 是否统计各阶段耗时
+     * @return 流水线执行结果, 流水线不存在时为 null
+     */
+    public PipelineResult callPipeline(String id, String args, boolean timing) throws InterruptedException {
+        List<InvokerPipelineWorker.Stage> stages = pipelines.get(id);
+        if (stages == null) {
+            log.error("not found pipeline [{}]", id);
+            return null;
+        }
+        long[] nanos = timing ? new long[stages.size()] : null;
+        ScriptExecuteEvent event = new ScriptExecuteEvent(LANGUAGE_ID + "-pipeline", id, null, args);
+        event.begin();
+        try (FairScheduler.Permit ignored = this.schedule(id);
+             WorkerPoolInvoke worker = registry.checkout(pipelineKey(id), () -> this.createPipelinePool(stages))) {
+            Value ret = worker.<InvokerPipelineWorker>unwrap().call(args, nanos);
+            String value = ret.isNull() ? null : ret.toString();
+            event.success();
+            if (!timing) return new PipelineResult(value, null);
+            List<StageTiming> timings = new ArrayList<>(stages.size());
+            for (int i = 0; i < stages.size(); i++) {
+                timings.add(new StageTiming(stages.get(i).id(), stages.get(i).function(), nanos[i]));
+            }
+            return new PipelineResult(value, timings);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * 为批处理任务创建独立的对象池, 不计入注册表的上下文预算, 不影响在线调用. 由调用方负责关闭.
+     *
+     * @param id       脚本ID
+     * @param funcName 函数名
+     * @param size     对象池大小
+     */
+    public WorkerPool newPool(String id, String funcName, int size) {
+        SharedScript script = scriptRefs.get(id);
+        if (script == null) throw new IllegalArgumentException("script not registered: " + id);
+        WorkerPool pool = this.createPool(script, funcName, size);
+        pool.setName(LANGUAGE_ID + "-job:" + id + "#" + funcName);
+        return pool;
+    }
+
+    /**
+     * 创建脚本函数对应的对象池
+     */
+    private WorkerPool createPool(SharedScript shared, String funcName, int size) {
+        // 使用注册时编译的具名 Source, 采样分析按 Source 名称匹配脚本帧
+        Source source = shared.source();
+        // isolate 模式使用脚本独占的引擎, 否则使用共享引擎
+        Engine target = shared.isolated() != null ? shared.isolated() : engine;
+        RecyclePolicy recycle = Optional.ofNullable(shared.option().recycle()).orElseGet(this::recyclePolicy);
+        return new WorkerPool(size, () -> new InvokerJSWork(source, funcName, () -> this.getContext(target)), recycle);
+    }
+
+    /**
+     * 创建流水线对应的对象池
+     */
+    private WorkerPool createPipelinePool(List<InvokerPipelineWorker.Stage> stages) {
+        Map<String, String> scripts = new HashMap<>();
+        for (InvokerPipelineWorker.Stage stage : stages) {
+            Source source = sources.get(stage.id());
+            if (source != null) scripts.put(stage.id(), source.getCharacters().toString());
+        }
+        return new WorkerPool(poolSize, () -> new InvokerPipelineWorker(stages, scripts, this::getContext), this.recyclePolicy());
+    }
+
+    /**
+     * 全局配置的实例回收策略
+     */
+    private RecyclePolicy recyclePolicy() {
+        return this.recyclePolicy(recycleMaxCalls, recycleMaxAgeMinutes, recycleMaxAllocatedMb);
+    }
+
+    /**
+     * 指定上限的实例回收策略, 预热次数使用全局配置 ({@code script.recycle.warmup-calls})
+     *
+     * @param maxCalls       执行次数上限, 小于等于 0 表示不限制
+     * @param maxAgeMinutes  存活时长上限 (分钟), 小于等于 0 表示不限制
+     * @param maxAllocatedMb 执行期间累计分配的内存上限 (MB), 小于等于 0 表示不限制
+     */
+    public RecyclePolicy recyclePolicy(long maxCalls, long maxAgeMinutes, long maxAllocatedMb) {
+        return new RecyclePolicy(maxCalls, Duration.ofMinutes(Math.max(maxAgeMinutes, 0)),
+                maxAllocatedMb << 20, recycleWarmupCalls);
+    }
+
+    /**
+     * 脚本函数的对象池标识, 内容相同的脚本ID共享同一个对象池
+     */
+    private String poolKey(SharedScript shared, String funcName) {
+        return LANGUAGE_ID + ":" + shared.pool() + "#" + funcName;
+    }
+
+    /**
+     * 脚本ID当前引用的脚本
+     */
+    private SharedScript script(String id) {
+        SharedScript script = scriptRefs.get(id);
+        if (script == null) throw new IllegalStateException("script not registered: " + id);
+        return script;
+    }
+
+    /**
+     * 脚本内容标识: 内容摘要, 以及影响对象池的执行选项.
+     * isolate 模式的脚本使用独占的引擎, 不与其他脚本ID共享.
+     */
+    private static String contentKey(String id, String script, ScriptOptions option) {
+        StringBuilder key = new StringBuilder(HostIntrinsics.INSTANCE.sha256(script));
+        if (option.isolate()) key.append("@isolate:").append(id).append('/').append(option.maxIsolateMemory());
+        if (option.recycle() != null) key.append('|').append(option.recycle());
+        return key.toString();
+    }
+
+    private String pipelineKey(String id) {
+        return LANGUAGE_ID + "-pipeline:" + id;
+    }
+
     public Source compileScript(String script) {
+        return this.compileScript("", script);
+    }
+
+    public Source compileScript(String name, String script) {
         try {
-            return Source.newBuilder(LANGUAGE_ID, script, "").build();
+            return Source.newBuilder(LANGUAGE_ID, script, name).build();
         } catch (IOException e) {
             throw new RuntimeException("编译脚本异常", e);
         }
     }
 
+    /**
+     * 脚本是否已注册
+     * @param id 脚本ID
+     */
+    public boolean contains(String id) {
+        return sources.containsKey(id);
+    }
+
+    /**
+     * 脚本是否运行在独立的 polyglot isolate 中
+     * @param id 脚本ID
+     */
+    public boolean isIsolated(String id) {
+        SharedScript script = scriptRefs.get(id);
+        return script != null && script.isolated() != null;
+    }
+
 
     /**
      * 编译并运行脚本
@@ -134,25 +865,62 @@ public class JavaScriptInvoker {
 
     @PreDestroy
     public void destroy(){
+        Optional.ofNullable(callAnyExecutor).ifPresent(ExecutorService::shutdownNow);
+        try {
+            // 等待执行中的调用结束, 再关闭其使用的引擎
+            registry.invalidate(key -> key.startsWith(LANGUAGE_ID)).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("worker pools not closed in time", e);
+        }
+        Optional.ofNullable(sharedPool).ifPresent(SharedContextPool::close);
+        scripts.values().stream().map(SharedScript::isolated).filter(Objects::nonNull).forEach(Engine::close);
+        scripts.clear();
+        scriptRefs.clear();
         CTX.get().close();
         CTX.remove();
     }
 
 
+    /**
+     * 创建运行在独立 polyglot isolate 中的引擎, 该引擎的所有上下文共享 isolate 的堆与 GC.
+     */
+    private Engine createIsolatedEngine(ScriptOptions option) {
+        Engine.Builder builder = Engine.newBuilder(LANGUAGE_ID).option("engine.SpawnIsolate", "true");
+        if (option.maxIsolateMemory() != null) {
+            builder.option("engine.MaxIsolateMemory", option.maxIsolateMemory());
+        }
+        try {
+            return builder.build();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("polyglot isolate is not available, build with -Pisolate on Oracle GraalVM", e);
+        }
+    }
+
     /**
      * 创建执行上下文
      * @return {@link Context}
      */
     private Context getContext() {
+        return this.getContext(engine);
+    }
+
+    /**
+     * 创建执行上下文
+     * @param engine 上下文所属引擎
+     * @return {@link Context}
+     */
+    private Context getContext(Engine engine) {
         // 通过构建器创建执行上下文
-        return Context.newBuilder(LANGUAGE_ID) // 可以执行的语言，可设置多种.
+        return ContextCreateEvent.record(LANGUAGE_ID, "JavaScriptInvoker", () -> HostIntrinsics.install(Context.newBuilder(LANGUAGE_ID) // 可以执行的语言，可设置多种.
                 .allowAllAccess(false) // 设置上下文所有权限的默认值
                 .allowCreateProcess(false)  // 是否允许创建进程
                 .allowCreateThread(false)   // 是否允许创建线程
                 .allowEnvironmentAccess(EnvironmentAccess.NONE) // 是否可以访问环境
                 .allowExperimentalOptions(false) // 是否允许实验性选项
-                .allowHostAccess(HostAccess.NONE)        // 访问Java对象和方法策略
-                .allowHostClassLookup(s -> true)    //  指定允许从 JavaScript 中查找哪些 Java 类。
+                .allowHostAccess(HostIntrinsics.ACCESS)        // 访问Java对象和方法策略: 仅允许调用注入的内置函数
+                .allowHostClassLookup(s -> false)    //  指定允许从 JavaScript 中查找哪些 Java 类。
                 .allowIO(IOAccess.NONE)             // 是否允许IO操作
                 .allowNativeAccess(false) // 是否允许原生访问
                 .timeZone(ZoneId.systemDefault()) // 设置时区
@@ -162,18 +930,18 @@ public class JavaScriptInvoker {
                 .err(System.err)
                 .in(System.in)
                 .engine(engine)
-                .build();
+                .build(), LANGUAGE_ID));
     }
 
     public Context getContext(ByteArrayOutputStream out) {
-        return Context.newBuilder(LANGUAGE_ID)
+        return ContextCreateEvent.record(LANGUAGE_ID, "JavaScriptInvoker", () -> HostIntrinsics.install(Context.newBuilder(LANGUAGE_ID)
                 .allowAllAccess(false)
                 .allowCreateProcess(false)
                 .allowCreateThread(false)
                 .allowEnvironmentAccess(EnvironmentAccess.NONE)
                 .allowExperimentalOptions(false)
-                .allowHostAccess(HostAccess.NONE)
-                .allowHostClassLookup(s -> true)
+                .allowHostAccess(HostIntrinsics.ACCESS)
+                .allowHostClassLookup(s -> false)
                 .allowIO(IOAccess.NONE)
                 .allowNativeAccess(false)
                 .timeZone(ZoneId.systemDefault())
@@ -183,7 +951,7 @@ public class JavaScriptInvoker {
                 .err(System.err)
                 .in(System.in)
                 .engine(engine)
-                .build();
+                .build(), LANGUAGE_ID));
     }
 
 }
@@ -0,0 +1,125 @@
+package com.zero.dynamic.invoker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 正则集合执行器
+ *  - 针对 "按顺序尝试 N 个正则, 返回第一个匹配的捕获组" 这类提取脚本, 注册时预编译为 {@link Pattern}.
+ *  - 执行时不需要 Context、锁和对象池, {@link Pattern} 本身线程安全, 可直接并发调用.
+ *  - 按注册顺序逐个匹配 (而不是合并为一个正则), 以保持与脚本中 for 循环相同的优先级语义.
+ * 脚本格式: 每行一个正则, 忽略空行; 也可以写成 JS 字面量形式 {@code /pattern/flags}, 支持 i、m、s 标志.
+ * {@code \s}、{@code \S} 按 JS 语义匹配 Unicode 空白 (如 U+00A0、U+3000), 与等价的 JS 脚本结果一致.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Service
+public class PatternSetInvoker {
+    /// JS 正则中 \s 匹配的字符 (ECMAScript WhiteSpace 与 LineTerminator), Java 的 \s 默认只匹配 ASCII 空白
+    private static final String JS_SPACE = "\\t\\n\\x0B\\f\\r \\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F\\u3000\\uFEFF";
+    private final ConcurrentHashMap<String, Pattern[]> patterns = new ConcurrentHashMap<>(16);
+
+    /**
+     * 注册正则集合, 预编译后缓存.
+     * @param id     脚本ID
+     * @param script 正则集合, 每行一个
+     */
+    public void register(String id, String script) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String line : script.split("\\R")) {
+            if (line.isBlank()) continue;
+            compiled.add(compile(line.strip()));
+        }
+        if (compiled.isEmpty()) {
+            throw new IllegalArgumentException("pattern set is empty");
+        }
+        patterns.put(id, compiled.toArray(Pattern[]::new));
+        log.info("register pattern set success[{}] patterns: {}", id, compiled.size());
+    }
+
+    /**
+     * 注销正则集合
+     * @param id 脚本ID
+     */
+    public void unregister(String id) {
+        patterns.remove(id);
+    }
+
+    /**
+     * 按顺序匹配, 返回第一个匹配正则的第一个捕获组 (没有捕获组时返回整个匹配).
+     *
+     * @param id      脚本ID
+     * @param content 待匹配内容
+     * @return 匹配结果, 脚本未注册或均未匹配时为 null
+     */
+    public String call(String id, String content) {
+        Pattern[] set = patterns.get(id);
+        if (set == null) {
+            log.error("not found pattern set [{}]", id);
+            return null;
+        }
+        for (Pattern pattern : set) {
+            Matcher matcher = pattern.matcher(content);
+            if (matcher.find()) {
+                return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编译单个正则, 支持 JS 字面量形式 /pattern/flags
+     */
+    private static Pattern compile(String line) {
+        int end = line.lastIndexOf('/');
+        if (line.startsWith("/") && end > 0) {
+            return Pattern.compile(translate(line.substring(1, end)), flags(line.substring(end + 1)));
+        }
+        return Pattern.compile(translate(line));
+    }
+
+    /**
+     * 将 \s、\S 替换为 JS 语义的字符类 (含 U+00A0、U+3000 等), 在字符类内部展开为嵌套字符类 (并集).
+     * 不使用 {@link Pattern#UNICODE_CHARACTER_CLASS}: 它同时改变 \d、\w, 而 JS 中二者只匹配 ASCII.
+     */
+    static String translate(String regex) {
+        StringBuilder sb = new StringBuilder(regex.length() + 16);
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c != '\\' || i + 1 == regex.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = regex.charAt(++i);
+            switch (next) {
+                case 's' -> sb.append('[').append(JS_SPACE).append(']');
+                case 'S' -> sb.append("[^").append(JS_SPACE).append(']');
+                default -> sb.append(c).append(next);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 将 JS 正则标志 (i、m、s) 转换为 {@link Pattern} 标志
+     */
+    static int flags(String flags) {
+        int result = 0;
+        for (char flag : flags.toCharArray()) {
+            result |= switch (flag) {
+                case 'i' -> Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                case 'm' -> Pattern.MULTILINE;
+                case 's' -> Pattern.DOTALL;
+                default -> throw new IllegalArgumentException("unsupported regex flag '" + flag + "': " + flags);
+            };
+        }
+        return result;
+    }
+}
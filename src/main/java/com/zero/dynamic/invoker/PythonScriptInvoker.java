@@ -1,11 +1,15 @@
 package com.zero.dynamic.invoker;
 
+import com.zero.dynamic.jfr.ContextCreateEvent;
+import com.zero.dynamic.jfr.ScriptExecuteEvent;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -14,7 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 
 /**
- * Python 脚本执行器
+ * Python 脚本执行器, 需要 Python 运行时, 可通过 script.python.enabled=false 关闭
  *
  * @author Zero.
  * <p> Created on 2025/7/7 13:53 </p>
@@ -22,8 +26,10 @@ import java.util.Optional;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "script.python.enabled", havingValue = "true", matchIfMissing = true)
 public class PythonScriptInvoker {
     private final String LANGUAGE = "python";
+    @Getter
     private final Engine engine = Engine.create(LANGUAGE);
     private final Map<String, Source> sources = new HashMap<>(32);
     private final ThreadLocal<Context> CTX = ThreadLocal.withInitial(()-> this.getContext(null));
@@ -35,7 +41,8 @@ public class PythonScriptInvoker {
      * @param script    脚本内容
      */
     public void register(String id, String script){
-        Source source = Source.create(LANGUAGE, script);
+        // 以脚本ID作为 Source 名称, 便于采样分析时定位
+        Source source = Source.newBuilder(LANGUAGE, script, id).buildLiteral();
         CTX.get().eval(source);
         sources.put(id, source);
     }
@@ -47,17 +54,31 @@ public class PythonScriptInvoker {
      * @param args      函数参数
      */
     public Object call(String id, String funcName, String args){
-        return Optional.ofNullable(sources.get(id)).map(source -> {
-            CTX.get().eval(source);
-            Value func = CTX.get().getBindings(LANGUAGE).getMember(funcName);
-            Value ret = func.execute(args);
-            return ret.isNull() ? null : ret.asString();
-        }).orElse(null);
+        ScriptExecuteEvent event = new ScriptExecuteEvent(LANGUAGE, id, funcName, args);
+        event.begin();
+        try {
+            Object ret = Optional.ofNullable(sources.get(id)).map(source -> {
+                CTX.get().eval(source);
+                Value func = CTX.get().getBindings(LANGUAGE).getMember(funcName);
+                Value value = func.execute(args);
+                return value.isNull() ? null : value.asString();
+            }).orElse(null);
+            event.success();
+            return ret;
+        } finally {
+            // 执行失败时同样记录事件
+            event.commit();
+        }
     }
 
 
-
-
+    /**
+     * 脚本是否已注册
+     * @param id 脚本ID
+     */
+    public boolean contains(String id) {
+        return sources.containsKey(id);
+    }
 
     /**
      * 执行 Python 脚本
@@ -73,13 +94,16 @@ public class PythonScriptInvoker {
      * @return {@link Context}
      */
     private Context getContext(ByteArrayOutputStream stdout) {
-        Context ctx = Context.newBuilder(LANGUAGE)
-                .out(stdout == null ? System.out : stdout)
-                .in(System.in)
-                .err(System.err)
-                .engine(engine)
-                .build();
-        ctx.initialize(LANGUAGE);
-        return ctx;
+        return ContextCreateEvent.record(LANGUAGE, "PythonScriptInvoker", () -> {
+            Context ctx = Context.newBuilder(LANGUAGE)
+                    .allowHostAccess(HostIntrinsics.ACCESS)
+                    .out(stdout == null ? System.out : stdout)
+                    .in(System.in)
+                    .err(System.err)
+                    .engine(engine)
+                    .build();
+            ctx.initialize(LANGUAGE);
+            return HostIntrinsics.install(ctx, LANGUAGE);
+        });
     }
 }
@@ -0,0 +1,21 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.RecyclePolicy;
+
+/**
+ * 脚本执行选项
+ *
+ * @param isolate          是否在独立的 polyglot isolate 中执行 (engine.SpawnIsolate), 拥有独立的堆与 GC,
+ *                         需要 Oracle GraalVM 的 isolate 语言运行时 (mvn -Pisolate)
+ * @param maxIsolateMemory isolate 堆内存上限, 如 256MB, 为 null 时使用默认值
+ * @param recycle          脚本对象池的实例回收策略, 为 null 时使用全局配置 (script.recycle.*)
+ * @author Zero.
+ */
+public record ScriptOptions(boolean isolate, String maxIsolateMemory, RecyclePolicy recycle) {
+    /// 默认: 与应用共享 JVM 堆
+    public static final ScriptOptions DEFAULT = new ScriptOptions(false, null, null);
+
+    public ScriptOptions(boolean isolate, String maxIsolateMemory) {
+        this(isolate, maxIsolateMemory, null);
+    }
+}
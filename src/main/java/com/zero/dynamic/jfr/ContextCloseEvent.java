@@ -0,0 +1,47 @@
+package com.zero.dynamic.jfr;
+
+import jdk.jfr.*;
+import org.graalvm.polyglot.Context;
+
+/**
+ * JFR 事件: 关闭 polyglot 上下文, 附带上下文的存活时长与使用次数.
+ *
+ * @author Zero.
+ */
+@Name("com.zero.dynamic.ContextClose")
+@Label("Context Close")
+@Category("Dynamic Script")
+@Description("Close of a polyglot context")
+public class ContextCloseEvent extends Event {
+    @Label("Owner")
+    String owner;
+
+    @Label("Age")
+    @Timespan(Timespan.NANOSECONDS)
+    long age;
+
+    @Label("Uses")
+    @Description("Number of times the context was used")
+    long uses;
+
+    /**
+     * 关闭上下文并记录事件
+     *
+     * @param context   上下文
+     * @param owner     持有方
+     * @param createdAt 上下文创建时间 ({@link System#nanoTime()})
+     * @param uses      上下文的使用次数
+     */
+    public static void record(Context context, String owner, long createdAt, long uses) {
+        ContextCloseEvent event = new ContextCloseEvent();
+        event.begin();
+        context.close();
+        event.end();
+        if (event.shouldCommit()) {
+            event.owner = owner;
+            event.age = System.nanoTime() - createdAt;
+            event.uses = uses;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.zero.dynamic.jfr;
+
+import jdk.jfr.*;
+import org.graalvm.polyglot.Context;
+
+import java.util.function.Supplier;
+
+/**
+ * JFR 事件: 创建 polyglot 上下文.
+ *
+ * @author Zero.
+ */
+@Name("com.zero.dynamic.ContextCreate")
+@Label("Context Create")
+@Category("Dynamic Script")
+@Description("Creation of a polyglot context")
+public class ContextCreateEvent extends Event {
+    @Label("Language")
+    String language;
+
+    @Label("Owner")
+    String owner;
+
+    /**
+     * 创建上下文并记录事件
+     *
+     * @param language 上下文语言
+     * @param owner    创建方
+     * @param factory  上下文构建方式
+     */
+    public static Context record(String language, String owner, Supplier<Context> factory) {
+        ContextCreateEvent event = new ContextCreateEvent();
+        event.begin();
+        Context context = factory.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.language = language;
+            event.owner = owner;
+            event.commit();
+        }
+        return context;
+    }
+}
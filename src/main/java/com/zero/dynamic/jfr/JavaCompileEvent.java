@@ -0,0 +1,47 @@
+package com.zero.dynamic.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR 事件: 动态编译 Java 源码.
+ *
+ * @author Zero.
+ */
+@Name("com.zero.dynamic.JavaCompile")
+@Label("Java Compile")
+@Category("Dynamic Script")
+@Description("Dynamic compilation of Java source code")
+public class JavaCompileEvent extends Event {
+    @Label("Class Name")
+    String className;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    long bytecodeSize;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Success")
+    boolean success;
+
+    public JavaCompileEvent(String className) {
+        this.className = className;
+    }
+
+    /**
+     * 提交事件
+     *
+     * @param bytecode 编译得到的字节码, 编译失败时为 null
+     * @param cacheHit 是否命中缓存
+     */
+    public void commit(byte[] bytecode, boolean cacheHit) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.bytecodeSize = bytecode == null ? 0 : bytecode.length;
+            this.cacheHit = cacheHit;
+            this.success = bytecode != null;
+            this.commit();
+        }
+    }
+}
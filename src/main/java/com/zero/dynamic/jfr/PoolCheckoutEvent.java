@@ -0,0 +1,48 @@
+package com.zero.dynamic.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR 事件: 从对象池获取上下文, 耗时即等待时间.
+ *
+ * @author Zero.
+ */
+@Name("com.zero.dynamic.PoolCheckout")
+@Label("Pool Checkout")
+@Category("Dynamic Script")
+@Description("Waiting for a pooled script context")
+@StackTrace(false)
+public class PoolCheckoutEvent extends Event {
+    @Label("Pool")
+    String pool;
+
+    @Label("Pool Size")
+    int poolSize;
+
+    @Label("Idle")
+    @Description("Idle contexts left in the pool after the checkout")
+    int idle;
+
+    @Label("Acquired")
+    @Description("False when the checkout timed out")
+    boolean acquired;
+
+    /**
+     * 结束等待并提交事件
+     *
+     * @param pool     对象池标识
+     * @param poolSize 对象池大小
+     * @param idle     获取后剩余的空闲上下文数量
+     * @param acquired 是否获取到上下文
+     */
+    public void commit(String pool, int poolSize, int idle, boolean acquired) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.pool = pool;
+            this.poolSize = poolSize;
+            this.idle = idle;
+            this.acquired = acquired;
+            this.commit();
+        }
+    }
+}
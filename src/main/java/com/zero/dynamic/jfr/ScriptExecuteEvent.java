@@ -0,0 +1,43 @@
+package com.zero.dynamic.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR 事件: 一次脚本函数调用, 耗时包括等待执行许可与上下文的时间.
+ *
+ * @author Zero.
+ */
+@Name("com.zero.dynamic.ScriptExecute")
+@Label("Script Execute")
+@Category("Dynamic Script")
+@Description("Execution of a registered script function")
+@StackTrace(false)
+public class ScriptExecuteEvent extends Event {
+    @Label("Script Id")
+    String scriptId;
+
+    @Label("Language")
+    String language;
+
+    @Label("Function")
+    String function;
+
+    @Label("Input Size")
+    @Description("Number of characters of the argument")
+    long inputSize;
+
+    @Label("Success")
+    boolean success;
+
+    public ScriptExecuteEvent(String language, String scriptId, String function, String args) {
+        this.language = language;
+        this.scriptId = scriptId;
+        this.function = function;
+        this.inputSize = args == null ? 0 : args.length();
+    }
+
+    /// 标记调用成功, 未标记的事件视为调用抛出异常
+    public void success() {
+        this.success = true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.zero.dynamic.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 持续 JFR 记录: JDK default 配置叠加 {@code jfr/dynamic-script.jfc}, 脚本延迟与 GC、安全点数据记录在同一份记录中.
+ * 通过 {@code jcmd <pid> JFR.dump name=dynamic-script filename=script.jfr} 导出.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Component
+public class ScriptFlightRecorder {
+    public static final String RECORDING_NAME = "dynamic-script";
+    private static final String SETTINGS = "jfr/dynamic-script.jfc";
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final String destination;
+    private Recording recording;
+
+    public ScriptFlightRecorder(@Value("${script.jfr.enabled:false}") boolean enabled,
+                                @Value("${script.jfr.max-age-minutes:60}") long maxAgeMinutes,
+                                @Value("${script.jfr.destination:}") String destination) {
+        this.enabled = enabled;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.destination = destination;
+    }
+
+    @PostConstruct
+    public void start() throws IOException, ParseException {
+        if (!enabled) return;
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS).getInputStream(), StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        recording = new Recording(settings);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        if (StringUtils.hasText(destination)) {
+            // 应用退出时写入该文件
+            recording.setDestination(Path.of(destination));
+            recording.setDumpOnExit(true);
+        }
+        recording.start();
+        log.info("flight recording [{}] started, max age: {}, destination: {}", RECORDING_NAME, maxAge, destination);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording == null) return;
+        // 停止时写入 destination (如已设置)
+        if (recording.getState() == RecordingState.RUNNING) recording.stop();
+        recording.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.zero.dynamic.job;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批处理任务: 逐行读取输入文件, 使用脚本函数处理每条记录, 按输入顺序写出结果.
+ *
+ * @author Zero.
+ */
+@Getter
+public class BulkJob {
+    public enum State {RUNNING, COMPLETED, FAILED, CANCELLED}
+
+    /// 任务进度
+    /// @param processedBytes   已处理的输入字节数
+    /// @param records          已处理的记录数
+    /// @param errors           执行失败的记录数, 对应的结果为空行
+    /// @param recordsPerSecond 平均吞吐量 (记录/秒)
+    public record Progress(String jobId, String scriptId, String function, State state,
+                           long totalBytes, long processedBytes, long records, long errors,
+                           int chunks, int completedChunks, double recordsPerSecond, double bytesPerSecond,
+                           long elapsedMillis, String input, String output, String error) {
+    }
+
+    private final String jobId;
+    private final String scriptId;
+    private final String function;
+    private final Path input;
+    private final Path output;
+    private final long totalBytes;
+    private final int chunks;
+    private final long startedAt = System.nanoTime();
+    private final LongAdder processedBytes = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private volatile State state = State.RUNNING;
+    private volatile boolean cancelled = false;
+    private volatile long finishedAt = 0;
+    private volatile String error;
+
+    BulkJob(String jobId, String scriptId, String function, Path input, Path output, long totalBytes, int chunks) {
+        this.jobId = jobId;
+        this.scriptId = scriptId;
+        this.function = function;
+        this.input = input;
+        this.output = output;
+        this.totalBytes = totalBytes;
+        this.chunks = chunks;
+    }
+
+    /**
+     * 请求取消, 各分片在处理下一条记录前停止
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    void finish(State state, String error) {
+        this.error = error;
+        this.finishedAt = System.nanoTime();
+        this.state = state;
+    }
+
+    public Progress progress() {
+        long elapsed = (state == State.RUNNING ? System.nanoTime() : finishedAt) - startedAt;
+        double seconds = Math.max(elapsed, 1) / 1e9;
+        long bytes = processedBytes.sum();
+        long count = records.sum();
+        return new Progress(jobId, scriptId, function, state, totalBytes, bytes, count, errors.sum(),
+                chunks, completedChunks.get(), count / seconds, bytes / seconds,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), input.toString(), output.toString(), error);
+    }
+}
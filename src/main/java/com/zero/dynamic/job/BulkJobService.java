@@ -0,0 +1,343 @@
+package com.zero.dynamic.job;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.pool.WorkerPool;
+import com.zero.dynamic.pool.WorkerPoolInvoke;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 离线批处理: 以内存映射读取按行分隔的输入文件, 按记录边界切分为多个分片, 在 fork-join 线程池中并行处理.
+ *  - 每个分片任务从任务独占的对象池中取出一个脚本实例, 在同一上下文中连续处理分片内的全部记录.
+ *  - 各分片的结果按分片顺序通过 {@link FileChannel} 写出, 输出文件与输入文件逐行对应.
+ *  - 输入、输出路径均相对于 {@code script.job.dir}, 不允许访问该目录之外的文件.
+ *  - 同时运行的任务数有上限, 达到上限时拒绝提交; 只保留最近结束的若干个任务的状态.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Service
+public class BulkJobService {
+    private final JavaScriptInvoker jsInvoker;
+    /// 输入、输出文件所在目录
+    private final Path baseDir;
+    /// 单个分片的目标大小 (字节), 实际大小对齐到记录边界
+    private final long chunkBytes;
+    /// 默认并行度
+    private final int defaultParallelism;
+    /// 同时运行的任务数上限
+    private final int maxConcurrent;
+    /// 保留状态的已结束任务数上限
+    private final int maxFinished;
+    private final Semaphore running;
+    private final ConcurrentHashMap<String, BulkJob> jobs = new ConcurrentHashMap<>(16);
+    /// 已结束的任务, 按结束顺序排列, 超出上限时移除最早结束的任务
+    private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    public BulkJobService(JavaScriptInvoker jsInvoker,
+                          @org.springframework.beans.factory.annotation.Value("${script.job.dir:jobs}") String baseDir,
+                          @org.springframework.beans.factory.annotation.Value("${script.job.chunk-mb:8}") long chunkMb,
+                          @org.springframework.beans.factory.annotation.Value("${script.job.parallelism:0}") int parallelism,
+                          @org.springframework.beans.factory.annotation.Value("${script.job.max-concurrent:4}") int maxConcurrent,
+                          @org.springframework.beans.factory.annotation.Value("${script.job.max-finished:100}") int maxFinished) {
+        if (chunkMb <= 0) throw new IllegalArgumentException("script.job.chunk-mb must be positive: " + chunkMb);
+        if (maxConcurrent <= 0) throw new IllegalArgumentException("script.job.max-concurrent must be positive: " + maxConcurrent);
+        this.jsInvoker = jsInvoker;
+        this.baseDir = Path.of(baseDir).toAbsolutePath().normalize();
+        this.chunkBytes = chunkMb << 20;
+        this.defaultParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxConcurrent = maxConcurrent;
+        this.maxFinished = Math.max(maxFinished, 0);
+        this.running = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 提交批处理任务, 在后台执行.
+     *
+     * @param scriptId    脚本ID
+     * @param function    函数名
+     * @param input       输入文件, 每行一条记录
+     * @param output      输出文件, 每行一条结果, 已存在时覆盖
+     * @param parallelism 并行度, 小于等于 0 时使用默认值
+     * @return 批处理任务
+     * @throws IllegalStateException 运行中的任务数已达上限
+     */
+    public BulkJob submit(String scriptId, String function, String input, String output, int parallelism) throws IOException {
+        if (!jsInvoker.contains(scriptId)) throw new IllegalArgumentException("script not registered: " + scriptId);
+        Path in = this.resolve(input);
+        Path out = this.resolve(output);
+        if (!Files.isRegularFile(in)) throw new IllegalArgumentException("input file not found: " + input);
+        if (in.equals(out)) throw new IllegalArgumentException("output file must differ from input file");
+        int threads = parallelism > 0 ? parallelism : defaultParallelism;
+
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("too many running jobs, limit: " + maxConcurrent);
+        }
+        try {
+            List<long[]> chunks;
+            try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+                chunks = split(channel, chunkBytes);
+            }
+            BulkJob job = new BulkJob(String.valueOf(ids.incrementAndGet()), scriptId, function, in, out, Files.size(in), chunks.size());
+            jobs.put(job.getJobId(), job);
+            Thread.ofPlatform().name("bulk-job-" + job.getJobId()).start(() -> {
+                try {
+                    this.run(job, chunks, threads);
+                } finally {
+                    this.retire(job);
+                    running.release();
+                }
+            });
+            log.info("bulk job [{}] submitted, script: {}#{}, input: {} ({} bytes, {} chunks), parallelism: {}",
+                    job.getJobId(), scriptId, function, in, job.getTotalBytes(), chunks.size(), threads);
+            return job;
+        } catch (IOException | RuntimeException e) {
+            running.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 记录已结束的任务, 超出保留上限时移除最早结束的任务
+     */
+    private void retire(BulkJob job) {
+        finished.add(job.getJobId());
+        while (finished.size() > maxFinished) {
+            String evicted = finished.poll();
+            if (evicted != null) jobs.remove(evicted);
+        }
+    }
+
+    public BulkJob get(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) throw new IllegalArgumentException("job not found: " + jobId);
+        return job;
+    }
+
+    public Collection<BulkJob> list() {
+        return jobs.values();
+    }
+
+    /**
+     * 取消任务, 已写出的结果保留
+     */
+    public BulkJob cancel(String jobId) {
+        BulkJob job = this.get(jobId);
+        job.cancel();
+        return job;
+    }
+
+    private Path resolve(String path) {
+        Path resolved = baseDir.resolve(path).toAbsolutePath().normalize();
+        if (!resolved.startsWith(baseDir)) throw new IllegalArgumentException("path outside job directory: " + path);
+        return resolved;
+    }
+
+    private void run(BulkJob job, List<long[]> chunks, int parallelism) {
+        try (FileChannel in = FileChannel.open(job.getInput(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(job.getOutput(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             WorkerPool pool = jsInvoker.newPool(job.getScriptId(), job.getFunction(), parallelism);
+             ForkJoinPool executor = new ForkJoinPool(parallelism)) {
+            OrderedWriter writer = new OrderedWriter(out, chunks.size());
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                int index = i;
+                long[] chunk = chunks.get(i);
+                tasks.add(executor.submit(() -> {
+                    this.process(job, pool, in, chunk[0], chunk[1], index, writer);
+                    return null;
+                }));
+            }
+            try {
+                for (ForkJoinTask<?> task : tasks) {
+                    task.get();
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                // 关闭线程池会等待全部分片结束, 先取消任务, 其余分片在处理下一条记录前停止
+                job.cancel();
+                throw e;
+            }
+            out.force(false);
+            job.finish(job.isCancelled() ? BulkJob.State.CANCELLED : BulkJob.State.COMPLETED, null);
+        } catch (ExecutionException e) {
+            log.error("bulk job [{}] failed", job.getJobId(), e.getCause());
+            job.finish(BulkJob.State.FAILED, e.getCause().toString());
+        } catch (Exception e) {
+            log.error("bulk job [{}] failed", job.getJobId(), e);
+            job.cancel();
+            job.finish(BulkJob.State.FAILED, e.toString());
+        }
+        log.info("bulk job [{}] finished: {}", job.getJobId(), job.progress());
+    }
+
+    /**
+     * 处理一个分片: 取出一个脚本实例, 逐行执行, 结果写入缓冲区后按分片顺序写出.
+     * 任务取消时停止写出, 已写出的结果保留, 其后完成的分片不再暂存.
+     */
+    private void process(BulkJob job, WorkerPool pool, FileChannel in, long start, long end, int index, OrderedWriter writer)
+            throws IOException, InterruptedException {
+        if (job.isCancelled()) {
+            writer.cancel();
+            return;
+        }
+        MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ByteArrayOutputStream results = new ByteArrayOutputStream((int) Math.min(end - start, 1 << 16));
+        byte[] record = new byte[1024];
+        try (WorkerPoolInvoke worker = pool.poll()) {
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                if (job.isCancelled()) {
+                    writer.cancel();
+                    return;
+                }
+                int next = position;
+                while (next < limit && buffer.get(next) != '\n') next++;
+                // 兼容 \r\n 换行
+                int length = (next > position && buffer.get(next - 1) == '\r' ? next - 1 : next) - position;
+                if (record.length < length) record = new byte[Math.max(length, record.length * 2)];
+                buffer.get(position, record, 0, length);
+                this.call(job, worker, new String(record, 0, length, StandardCharsets.UTF_8), results);
+                results.write('\n');
+                job.getProcessedBytes().add(Math.min(next + 1, limit) - position);
+                job.getRecords().increment();
+                position = next + 1;
+            }
+        }
+        writer.write(index, results.toByteArray());
+        job.getCompletedChunks().incrementAndGet();
+    }
+
+    private void call(BulkJob job, WorkerPoolInvoke worker, String record, ByteArrayOutputStream results) {
+        try {
+            Value ret = worker.call(record);
+            if (ret.isNull()) return;
+            // 结果中的换行会破坏逐行对应关系, 转义后写出
+            String value = ret.toString().replace("\r", "\\r").replace("\n", "\\n");
+            results.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            if (job.getErrors().sum() == 0) {
+                log.warn("bulk job [{}] record failed: {}", job.getJobId(), e.getMessage());
+            }
+            job.getErrors().increment();
+        }
+    }
+
+    /**
+     * 按记录边界切分文件, 每个分片约 {@code chunkBytes} 字节, 分片的结束位置对齐到换行符之后.
+     *
+     * @return 各分片的 [起始位置, 结束位置)
+     */
+    static List<long[]> split(FileChannel channel, long chunkBytes) throws IOException {
+        if (chunkBytes <= 0) throw new IllegalArgumentException("chunk size must be positive: " + chunkBytes);
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkBytes, size);
+            // 从目标位置的前一个字节开始查找换行符, 目标位置恰好是记录边界时不会多包含一条记录
+            long scan = end - 1;
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, scan);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end = scan + newline + 1;
+                    break;
+                }
+                scan += read;
+                end = Math.min(scan, size);
+            }
+            if (end - start > Integer.MAX_VALUE) throw new IllegalArgumentException("record too large at offset " + start);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(BulkJob::cancel);
+    }
+
+    /**
+     * 按分片顺序写出结果: 先完成的分片暂存, 前面的分片全部写出后再写出.
+     * 被跳过的分片之后的结果无法按顺序写出, 取消后丢弃暂存的结果并忽略后续写入.
+     */
+    private static final class OrderedWriter {
+        private final FileChannel channel;
+        private final byte[][] pending;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int next = 0;
+        private long position = 0;
+        private boolean cancelled = false;
+
+        OrderedWriter(FileChannel channel, int chunks) {
+            this.channel = channel;
+            this.pending = new byte[chunks][];
+        }
+
+        void write(int index, byte[] results) throws IOException {
+            lock.lock();
+            try {
+                if (cancelled) return;
+                pending[index] = results;
+                while (next < pending.length && pending[next] != null) {
+                    ByteBuffer buffer = ByteBuffer.wrap(pending[next]);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    pending[next++] = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                Arrays.fill(pending, null);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
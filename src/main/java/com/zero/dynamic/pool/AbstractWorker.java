@@ -1,11 +1,17 @@
 package com.zero.dynamic.pool;
 
+import com.zero.dynamic.jfr.ContextCloseEvent;
+import com.zero.dynamic.jfr.ContextCreateEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -28,36 +34,87 @@ public class AbstractWorker implements Worker, AutoCloseable {
      * {@link Context} 和 {@link Value} 都是线程不安全的，所以需要加锁.
      */
     private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 创建时间 ({@link System#nanoTime()})
+     */
+    private final long createdAt = System.nanoTime();
+    /**
+     * 执行次数, 只在持有上下文锁时写入; volatile 供回收检查在不持有锁时读取
+     */
+    private volatile long calls = 0;
+    /**
+     * 执行期间累计分配的内存 (字节), 仅在开启统计时累计; 写入与读取方式同 {@link #calls}
+     */
+    private volatile long allocatedBytes = 0;
+    /**
+     * 是否统计执行期间的内存分配
+     */
+    private volatile boolean measureAllocation = false;
+    /**
+     * 是否记录最近一次的入参, 仅在实例可能被回收时开启
+     */
+    private volatile boolean recordArgs = false;
+    /**
+     * 最近一次 {@link #call} 的入参, 用于预热替代实例, 预热后清除
+     */
+    private volatile Object lastArgs;
 
 
     protected AbstractWorker(String language, String script, String funcName) {
+        this(language, script, funcName, () -> ContextCreateEvent.record(language, "AbstractWorker", () -> Context.create(language)));
+    }
+
+    /**
+     * @param contextFactory 上下文构建方式, 如使用执行器的共享引擎与沙箱配置.
+     */
+    protected AbstractWorker(String language, String script, String funcName, Supplier<Context> contextFactory) {
+        this(Source.create(language, script), funcName, contextFactory);
+    }
+
+    /**
+     * @param source         预编译的脚本, 其名称出现在采样分析、异常栈中, 用于定位脚本
+     * @param contextFactory 上下文构建方式
+     */
+    protected AbstractWorker(Source source, String funcName, Supplier<Context> contextFactory) {
+        this(contextFactory, context -> resolve(context, source, funcName));
+    }
+
+    /**
+     * @param contextFactory 上下文构建方式
+     * @param loader         在新建的上下文中加载脚本, 返回要执行的函数句柄
+     */
+    protected AbstractWorker(Supplier<Context> contextFactory, Function<Context, Value> loader) {
         try {
-            // 构建脚本
-            Source source = Source.create(language, script);
             // 构建执行上下文 TODO 更多详细配置
-            this.context = Context.create(language);
-            // 编译脚本
-            Value value = this.context.eval(source);
-            // 获取脚本的函数句柄
-            if (funcName == null) {
-                if (!value.canExecute()) {
-                    throw new RuntimeException("script IIFE function is not executable");
-                }
-                this.func = value;
-            }else {
-                Value member = this.context.getBindings(language).getMember(funcName);
-                if (member == null || !member.canExecute()){
-                    throw new RuntimeException("script non executable functions: " + funcName);
-                }
-                this.func = member;
-            }
+            this.context = contextFactory.get();
+            this.func = loader.apply(this.context);
         }catch (Exception e){
             if (Objects.nonNull(this.context)){
                 context.close();
             }
             throw new RuntimeException("failed to init worker", e);
         }
+    }
 
+    /**
+     * 编译脚本, 获取脚本的函数句柄
+     */
+    private static Value resolve(Context context, Source source, String funcName) {
+        String language = source.getLanguage();
+        // 编译脚本
+        Value value = context.eval(source);
+        // 获取脚本的函数句柄
+        if (funcName == null) {
+            if (!value.canExecute()) {
+                throw new RuntimeException("script IIFE function is not executable");
+            }
+            return value;
+        }
+        Value member = context.getBindings(language).getMember(funcName);
+        if (member == null || !member.canExecute()){
+            throw new RuntimeException("script non executable functions: " + funcName);
+        }
+        return member;
     }
 
     /**
@@ -65,14 +122,97 @@ public class AbstractWorker implements Worker, AutoCloseable {
      */
     @Override
     public Value call(Object args) {
+        if (recordArgs) this.lastArgs = args;
+        return this.locked(() -> this.func.execute(args));
+    }
+
+    /**
+     * 执行上下文, 仅可在 {@link #locked} 中使用
+     */
+    protected Context context() {
+        return this.context;
+    }
+
+    /**
+     * 函数句柄, 仅可在 {@link #locked} 中使用
+     */
+    protected Value func() {
+        return this.func;
+    }
+
+    /**
+     * 持有上下文锁执行操作, 供子类在同一上下文中执行多个函数.
+     */
+    protected <T> T locked(Supplier<T> action) {
         try {
             lock.lock();
-            return this.func.execute(args);
+            calls++;
+            if (!measureAllocation) return action.get();
+            long before = WorkerPoolRegistry.allocatedBytes();
+            try {
+                return action.get();
+            } finally {
+                allocatedBytes += WorkerPoolRegistry.allocatedBytes() - before;
+            }
         }finally {
             lock.unlock();
         }
     }
 
+    /**
+     * 中断正在执行的脚本, 执行中的调用抛出 {@link org.graalvm.polyglot.PolyglotException}, 上下文仍可继续使用.
+     * 未在执行时立即返回, 不可在执行脚本的线程中调用.
+     *
+     * @param timeout 等待中断完成的超时时间
+     */
+    public void interrupt(Duration timeout) throws TimeoutException {
+        this.context.interrupt(timeout);
+    }
+
+    /**
+     * 执行次数
+     */
+    public long getCalls() {
+        return this.calls;
+    }
+
+    /**
+     * 存活时长
+     */
+    public Duration getAge() {
+        return Duration.ofNanos(System.nanoTime() - createdAt);
+    }
+
+    /**
+     * 执行期间累计分配的内存 (字节), 未开启统计时为 0
+     */
+    public long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    /**
+     * 取出并清除最近一次执行的入参, 避免长期持有较大的入参; 未执行过时为 null
+     */
+    Object takeLastArgs() {
+        Object args = this.lastArgs;
+        this.lastArgs = null;
+        return args;
+    }
+
+    /**
+     * 开启最近一次入参的记录
+     */
+    void recordArgs() {
+        this.recordArgs = true;
+    }
+
+    /**
+     * 开启执行期间的内存分配统计
+     */
+    void measureAllocation() {
+        this.measureAllocation = true;
+    }
+
     /**
      * 释放脚本上下文资源.
      */
@@ -80,7 +220,7 @@ public class AbstractWorker implements Worker, AutoCloseable {
     public void close() throws Exception {
         try {
             lock.lock();
-            context.close();
+            ContextCloseEvent.record(context, this.getClass().getSimpleName(), createdAt, calls);
         }finally {
             lock.unlock();
         }
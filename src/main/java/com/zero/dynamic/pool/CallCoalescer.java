@@ -0,0 +1,173 @@
+package com.zero.dynamic.pool;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 调用合并器: 将同一脚本函数在短时间窗口内的并发调用合并为一批, 在同一个上下文中一次执行.
+ * <p>
+ * 批次中第一个到达的调用方作为 leader, 等待时间窗口结束或批次已满后, 由 leader 获取上下文执行整批调用,
+ * 再逐个完成各调用方的结果; 其余调用方只需等待自己的结果. 以每次调用最多增加一个时间窗口的延迟为代价,
+ * 减少对象池的获取次数与进入脚本环境的次数, 提高单个上下文的吞吐量.
+ *
+ * @author Zero.
+ */
+public class CallCoalescer {
+    /// 合并等待的时间窗口
+    @Getter
+    private final Duration window;
+    /// 单批次最大调用数
+    @Getter
+    private final int maxBatch;
+    /// 正在收集中的批次, key: 对象池标识
+    private final ConcurrentHashMap<String, Batch> batches = new ConcurrentHashMap<>(16);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    /// 批次执行方式, 需为每个调用设置结果
+    @FunctionalInterface
+    public interface BatchHandler {
+        void execute(List<Call> calls) throws Exception;
+    }
+
+    /// 合并统计信息
+    public record Stats(long calls, long batches, double averageBatchSize) {
+    }
+
+    public CallCoalescer(Duration window, int maxBatch) {
+        if (window.isNegative() || maxBatch < 1) {
+            throw new IllegalArgumentException("invalid coalesce window or batch size: " + window + ", " + maxBatch);
+        }
+        this.window = window;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * 提交一次调用, 阻塞直到所在批次执行完成.
+     *
+     * @param key     合并标识, 相同标识的调用合并执行
+     * @param args    调用参数
+     * @param handler 批次执行方式, 仅批次的 leader 使用
+     * @return 本次调用的结果
+     */
+    public String submit(String key, String args, BatchHandler handler) throws InterruptedException {
+        calls.increment();
+        Call call = new Call(args);
+        Batch batch;
+        boolean leader;
+        while (true) {
+            batch = batches.computeIfAbsent(key, k -> new Batch());
+            synchronized (batch) {
+                if (batch.sealed) {
+                    // 批次已开始执行, 重新获取
+                    batches.remove(key, batch);
+                    continue;
+                }
+                batch.calls.add(call);
+                leader = batch.calls.size() == 1;
+                if (batch.calls.size() >= maxBatch) {
+                    this.seal(key, batch);
+                }
+            }
+            break;
+        }
+        if (leader) {
+            try {
+                this.await(key, batch);
+            } finally {
+                // leader 被中断时仍需执行批次, 避免其余调用方永久等待
+                this.flush(batch, handler);
+            }
+        }
+        try {
+            return call.future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Stats stats() {
+        long total = calls.sum();
+        long flushed = flushes.sum();
+        return new Stats(total, flushed, flushed == 0 ? 0 : (double) total / flushed);
+    }
+
+    /**
+     * leader 等待时间窗口结束或批次已满
+     */
+    private void await(String key, Batch batch) throws InterruptedException {
+        long deadline = System.nanoTime() + window.toNanos();
+        synchronized (batch) {
+            try {
+                long remaining;
+                while (!batch.sealed && (remaining = deadline - System.nanoTime()) > 0) {
+                    batch.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                }
+            } finally {
+                if (!batch.sealed) this.seal(key, batch);
+            }
+        }
+    }
+
+    /**
+     * 执行整批调用, 未设置结果的调用以异常结束, 避免调用方永久等待.
+     */
+    private void flush(Batch batch, BatchHandler handler) {
+        flushes.increment();
+        try {
+            handler.execute(batch.calls);
+        } catch (Throwable e) {
+            for (Call call : batch.calls) call.fail(e);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        } finally {
+            IllegalStateException missing = new IllegalStateException("batch call not completed");
+            for (Call call : batch.calls) call.fail(missing);
+        }
+    }
+
+    private void seal(String key, Batch batch) {
+        batch.sealed = true;
+        batches.remove(key, batch);
+        batch.notifyAll();
+    }
+
+    /**
+     * 正在收集的批次, 通过自身监视器同步
+     */
+    private static final class Batch {
+        final List<Call> calls = new ArrayList<>();
+        boolean sealed = false;
+    }
+
+    /**
+     * 批次中的一次调用
+     */
+    public static final class Call {
+        @Getter
+        private final String args;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        Call(String args) {
+            this.args = args;
+        }
+
+        public void complete(String value) {
+            future.complete(value);
+        }
+
+        public void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
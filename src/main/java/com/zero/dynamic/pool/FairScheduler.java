@@ -0,0 +1,301 @@
+package com.zero.dynamic.pool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 脚本执行的全局加权公平调度器 (Deficit Round Robin).
+ * <p>
+ * 所有脚本执行先在此申请执行许可, 全局同时执行数不超过 {@code maxConcurrency}. 每个租户 (如脚本ID) 有独立的等待队列,
+ * 调度器在有等待者的租户之间轮转, 每轮为租户增加 {@code 权重 * quantum} 的额度, 每次执行扣除该租户的预估执行耗时
+ * (最近执行耗时的指数移动平均), 因此各租户按权重分配执行时间而不是执行次数; 单个租户被大量调用时,
+ * 其余租户的排队延迟基本不受影响. 租户还可以设置并发上限, 达到上限时暂时跳过该租户.
+ *
+ * @author Zero.
+ */
+@Slf4j
+public class FairScheduler {
+    /// 全局同时执行数上限
+    private final int maxConcurrency;
+    /// 权重为 1 的租户每轮获得的额度 (ns)
+    private final long quantumNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>(16);
+    /// 有等待者的租户, 按轮转顺序排列
+    private final ArrayDeque<Tenant> active = new ArrayDeque<>();
+    /// 正在执行的数量
+    private int running = 0;
+
+    /// 调度器统计信息
+    public record Stats(int maxConcurrency, int running, List<TenantStats> tenants) {
+    }
+
+    /// 租户统计信息
+    public record TenantStats(String tenant, int weight, int maxConcurrency, int running, int waiting,
+                              long served, long averageNanos) {
+    }
+
+    /**
+     * @param maxConcurrency 全局同时执行数上限
+     * @param quantumNanos   权重为 1 的租户每轮获得的额度 (ns)
+     */
+    public FairScheduler(int maxConcurrency, long quantumNanos) {
+        if (maxConcurrency < 1 || quantumNanos < 1) {
+            throw new IllegalArgumentException("invalid scheduler concurrency or quantum: " + maxConcurrency + ", " + quantumNanos);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.quantumNanos = quantumNanos;
+    }
+
+    /**
+     * 设置租户的权重与并发上限
+     *
+     * @param tenant         租户标识
+     * @param weight         权重, 大于 0
+     * @param maxConcurrency 租户同时执行数上限, 小于等于 0 表示仅受全局上限限制
+     */
+    public void configure(String tenant, int weight, int maxConcurrency) {
+        if (weight < 1) throw new IllegalArgumentException("weight must be positive: " + weight);
+        lock.lock();
+        try {
+            Tenant t = tenants.computeIfAbsent(tenant, Tenant::new);
+            t.weight = weight;
+            t.maxConcurrency = maxConcurrency;
+            // 并发上限放宽后可能有等待者可以执行
+            this.dispatch();
+        } finally {
+            lock.unlock();
+        }
+        log.info("scheduler tenant configured [{}] weight: {}, max concurrency: {}", tenant, weight, maxConcurrency);
+    }
+
+    /**
+     * 移除没有执行与等待中调用的租户, 如脚本注销
+     */
+    public void remove(String tenant) {
+        lock.lock();
+        try {
+            tenants.computeIfPresent(tenant, (k, t) -> t.running == 0 && t.waiting.isEmpty() ? null : t);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 申请执行许可, 阻塞直到轮到该租户.
+     *
+     * @param tenant 租户标识
+     * @return {@link Permit} 执行结束后需关闭以归还许可
+     */
+    public Permit acquire(String tenant) throws InterruptedException {
+        lock.lock();
+        try {
+            // 与 remove 在同一把锁内查找/创建租户并入队, 避免排队到已被移除 (不在统计与配置中) 的租户
+            Tenant t = tenants.computeIfAbsent(tenant, Tenant::new);
+            Ticket ticket = new Ticket(lock.newCondition());
+            t.waiting.addLast(ticket);
+            if (!t.active) {
+                t.active = true;
+                active.addLast(t);
+            }
+            this.dispatch();
+            try {
+                while (!ticket.granted) {
+                    ticket.condition.await();
+                }
+            } catch (InterruptedException e) {
+                if (ticket.granted) {
+                    this.release(t, 0);
+                } else {
+                    t.waiting.remove(ticket);
+                    if (t.waiting.isEmpty()) this.deactivate(t);
+                }
+                throw e;
+            }
+            return new Permit(this, t, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Stats stats() {
+        lock.lock();
+        try {
+            List<TenantStats> list = new ArrayList<>(tenants.size());
+            for (Tenant t : tenants.values()) {
+                list.add(new TenantStats(t.name, t.weight, t.maxConcurrency, t.running, t.waiting.size(), t.served, t.averageNanos));
+            }
+            return new Stats(maxConcurrency, running, list);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按 DRR 为等待者分配空闲的执行许可, 需持有锁.
+     */
+    private void dispatch() {
+        while (running < maxConcurrency && !active.isEmpty()) {
+            Tenant t = this.next();
+            // 全部租户达到并发上限
+            if (t == null) return;
+            t.deficit -= t.cost(quantumNanos);
+            Ticket ticket = t.waiting.pollFirst();
+            ticket.granted = true;
+            ticket.condition.signal();
+            t.running++;
+            running++;
+            if (t.waiting.isEmpty()) this.deactivate(t);
+        }
+    }
+
+    /**
+     * 轮转到下一个额度足够的租户并移到队首, 需持有锁.
+     * <p>
+     * 逐个租户补充额度直到有租户额度足够, 补充的轮数与额度成反比, quantum 远小于执行耗时时会空转很多轮.
+     * 这里一次算出结果: 所需轮数最少的租户 (相同时按轮转顺序靠前者) 先轮到, 经过的轮数为 R 时,
+     * 轮转中位于其前面的租户补充 R + 1 轮, 其余租户补充 R 轮, 与逐轮补充的结果相同.
+     *
+     * @return 额度足够的租户, 全部达到并发上限时为 null
+     */
+    private Tenant next() {
+        Tenant winner = null;
+        int winnerIndex = -1;
+        long rounds = Long.MAX_VALUE;
+        int index = 0;
+        for (Tenant t : active) {
+            if (!t.capped()) {
+                long need = t.rounds(quantumNanos);
+                if (need < rounds) {
+                    winner = t;
+                    winnerIndex = index;
+                    rounds = need;
+                    if (need == 0) break;
+                }
+            }
+            index++;
+        }
+        if (winner == null) return null;
+        index = 0;
+        for (Tenant t : active) {
+            // 达到并发上限的租户轮转时被跳过, 不补充额度
+            if (!t.capped()) t.deficit += (rounds + (index < winnerIndex ? 1 : 0)) * t.weight * quantumNanos;
+            index++;
+        }
+        for (int i = 0; i < winnerIndex; i++) {
+            active.addLast(active.pollFirst());
+        }
+        return winner;
+    }
+
+    /**
+     * 租户没有等待者时退出轮转, 清空剩余额度, 避免空闲租户积累额度
+     */
+    private void deactivate(Tenant t) {
+        active.remove(t);
+        t.active = false;
+        t.deficit = 0;
+    }
+
+    /**
+     * 归还执行许可, 记录本次执行耗时
+     */
+    private void release(Tenant t, long elapsedNanos) {
+        lock.lock();
+        try {
+            t.running--;
+            running--;
+            if (elapsedNanos > 0) {
+                t.served++;
+                t.averageNanos = t.averageNanos == 0 ? elapsedNanos : (t.averageNanos * 7 + elapsedNanos) / 8;
+            }
+            this.dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 执行许可, 关闭时归还
+     */
+    public static final class Permit implements AutoCloseable {
+        private final FairScheduler scheduler;
+        private final Tenant tenant;
+        private final long start;
+        private boolean closed = false;
+
+        private Permit(FairScheduler scheduler, Tenant tenant, long start) {
+            this.scheduler = scheduler;
+            this.tenant = tenant;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            scheduler.release(tenant, Math.max(1, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 等待执行许可的调用方
+     */
+    private static final class Ticket {
+        final Condition condition;
+        boolean granted = false;
+
+        Ticket(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 租户调度状态, 除 name 外均由调度器的锁保护
+     */
+    private static final class Tenant {
+        final String name;
+        final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+        int weight = 1;
+        int maxConcurrency = 0;
+        int running = 0;
+        boolean active = false;
+        /// 剩余额度 (ns)
+        long deficit = 0;
+        long served = 0;
+        /// 执行耗时的指数移动平均 (ns)
+        long averageNanos = 0;
+
+        Tenant(String name) {
+            this.name = name;
+        }
+
+        /// 预估单次执行耗时, 尚无统计时按一个 quantum 计算
+        long cost(long quantumNanos) {
+            return averageNanos == 0 ? quantumNanos : averageNanos;
+        }
+
+        /// 额度补充到足够执行一次所需的轮数
+        long rounds(long quantumNanos) {
+            long missing = this.cost(quantumNanos) - deficit;
+            if (missing <= 0) return 0;
+            long perRound = weight * quantumNanos;
+            return (missing + perRound - 1) / perRound;
+        }
+
+        /// 是否达到租户并发上限
+        boolean capped() {
+            return maxConcurrency > 0 && running >= maxConcurrency;
+        }
+    }
+}
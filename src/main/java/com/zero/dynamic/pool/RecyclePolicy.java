@@ -0,0 +1,35 @@
+package com.zero.dynamic.pool;
+
+import java.time.Duration;
+
+/**
+ * 脚本实例回收策略: 满足任一条件时, 实例在归还时被标记为待回收, 由后台构建并预热替代实例后再关闭.
+ * 避免 guest 全局状态与堆在长期运行中不断累积.
+ *
+ * @param maxCalls          执行次数上限, 小于等于 0 表示不限制
+ * @param maxAge            存活时长上限, 为 null 或 0 表示不限制
+ * @param maxAllocatedBytes 执行期间累计分配的内存上限 (字节), 小于等于 0 表示不限制.
+ *                          HotSpot 上无法单独统计某个上下文的 guest 堆, 以执行线程在该实例中的分配量近似
+ * @param warmupCalls       替代实例使用旧实例最近一次的入参预热的次数
+ * @author Zero.
+ */
+public record RecyclePolicy(long maxCalls, Duration maxAge, long maxAllocatedBytes, int warmupCalls) {
+    /// 不回收
+    public static final RecyclePolicy NONE = new RecyclePolicy(0, null, 0, 0);
+
+    /**
+     * 是否启用
+     */
+    public boolean enabled() {
+        return maxCalls > 0 || (maxAge != null && !maxAge.isZero()) || maxAllocatedBytes > 0;
+    }
+
+    /**
+     * 实例是否需要回收
+     */
+    public boolean expired(AbstractWorker worker) {
+        return (maxCalls > 0 && worker.getCalls() >= maxCalls)
+                || (maxAge != null && !maxAge.isZero() && worker.getAge().compareTo(maxAge) >= 0)
+                || (maxAllocatedBytes > 0 && worker.getAllocatedBytes() >= maxAllocatedBytes);
+    }
+}
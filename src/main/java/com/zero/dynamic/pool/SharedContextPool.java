@@ -0,0 +1,257 @@
+package com.zero.dynamic.pool;
+
+import com.zero.dynamic.jfr.ContextCloseEvent;
+import com.zero.dynamic.jfr.PoolCheckoutEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 多脚本共享的上下文池: 固定数量的通用上下文, 按需加载任意已注册脚本的函数.
+ * <p>
+ * 与每个脚本独占一个 {@link WorkerPool} 不同, 上下文数量只取决于并发度, 与脚本数量无关.
+ * 每个上下文以 LRU 缓存最多 {@code maxFunctions} 个已加载的函数句柄, 超出时丢弃最久未使用的句柄 (由 guest GC 回收);
+ * 获取上下文时优先选择已加载目标函数的空闲上下文, 减少重复加载.
+ * 各脚本的函数在同一上下文中只按函数作用域区分, 脚本的全局修改对其他脚本可见, 见 {@link com.zero.dynamic.pool.impl.InvokerJSWork#loadScoped}.
+ *
+ * @author Zero.
+ */
+@Slf4j
+public class SharedContextPool implements AutoCloseable {
+    /// 上下文数量
+    private final int size;
+    /// 单个上下文缓存的函数句柄上限
+    private final int maxFunctions;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    /// 全部上下文
+    private final List<SharedWorker> workers;
+    /// 空闲的上下文
+    private final List<SharedWorker> idle;
+    private volatile boolean closed = false;
+    /// 获取到已加载目标函数的上下文的次数
+    private final LongAdder warmCheckouts = new LongAdder();
+    private final LongAdder coldCheckouts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /// 共享上下文池统计信息
+    public record Stats(int contexts, int maxFunctions, int loadedFunctions, long warmCheckouts, long coldCheckouts,
+                        long loads, long evictions) {
+    }
+
+    /**
+     * @param size           上下文数量
+     * @param maxFunctions   单个上下文缓存的函数句柄上限
+     * @param contextFactory 上下文构建方式
+     */
+    public SharedContextPool(int size, int maxFunctions, Supplier<Context> contextFactory) {
+        if (size < 1 || maxFunctions < 1) {
+            throw new IllegalArgumentException("invalid shared pool size or max functions: " + size + ", " + maxFunctions);
+        }
+        this.size = size;
+        this.maxFunctions = maxFunctions;
+        this.workers = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                this.workers.add(new SharedWorker(contextFactory.get()));
+            }
+        } catch (RuntimeException e) {
+            this.workers.forEach(SharedWorker::close);
+            throw e;
+        }
+        this.idle = new ArrayList<>(workers);
+    }
+
+    /**
+     * 获取一个上下文, 阻塞直到有空闲的上下文.
+     *
+     * @param key 即将调用的函数标识, 优先选择已加载该函数的上下文
+     * @return {@link Lease} 用完后需关闭以归还上下文
+     */
+    public Lease checkout(String key) throws InterruptedException {
+        PoolCheckoutEvent event = new PoolCheckoutEvent();
+        event.begin();
+        lock.lock();
+        try {
+            while (idle.isEmpty()) {
+                if (closed) throw new RuntimeException("pool already closed");
+                available.await();
+            }
+            if (closed) throw new RuntimeException("pool already closed");
+            SharedWorker chosen = null;
+            for (SharedWorker worker : idle) {
+                if (worker.handles.containsKey(key)) {
+                    chosen = worker;
+                    break;
+                }
+                // 都未加载时选择缓存函数最少的上下文, 使各上下文的脚本分布均匀
+                if (chosen == null || worker.handles.size() < chosen.handles.size()) chosen = worker;
+            }
+            idle.remove(chosen);
+            chosen.uses++;
+            event.commit("shared", size, idle.size(), true);
+            (chosen.handles.containsKey(key) ? warmCheckouts : coldCheckouts).increment();
+            return new Lease(chosen);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除各上下文中匹配的函数句柄, 如脚本注销. 使用中的上下文在归还时移除.
+     *
+     * @param keys 函数标识匹配条件
+     */
+    public void evict(Predicate<String> keys) {
+        lock.lock();
+        try {
+            for (SharedWorker worker : workers) {
+                // 使用中的上下文的缓存由持有者修改, 归还后再移除
+                if (idle.contains(worker)) worker.handles.keySet().removeIf(keys);
+                else worker.pendingEvictions.add(keys);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Stats stats() {
+        lock.lock();
+        try {
+            // 仅统计空闲的上下文, 使用中的上下文的缓存由持有者修改
+            int loaded = 0;
+            for (SharedWorker worker : idle) loaded += worker.handles.size();
+            return new Stats(size, maxFunctions, loaded, warmCheckouts.sum(), coldCheckouts.sum(), loads.sum(), evictions.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放所有上下文, 使用中的上下文在归还时关闭.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            idle.forEach(SharedWorker::close);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(SharedWorker worker) {
+        lock.lock();
+        try {
+            if (closed) {
+                worker.close();
+                return;
+            }
+            worker.pendingEvictions.forEach(keys -> worker.handles.keySet().removeIf(keys));
+            worker.pendingEvictions.clear();
+            idle.add(worker);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 上下文的使用权, 同一时刻只有一个持有者, 关闭后归还.
+     */
+    public final class Lease implements AutoCloseable {
+        private final SharedWorker worker;
+        private boolean closed = false;
+
+        private Lease(SharedWorker worker) {
+            this.worker = worker;
+        }
+
+        /**
+         * 获取函数句柄, 未加载或版本变化 (如脚本重新注册) 时在当前上下文中加载.
+         *
+         * @param key     函数标识
+         * @param version 函数版本, 与缓存的版本不是同一对象时重新加载
+         * @param loader  在上下文中加载函数, 返回函数句柄
+         */
+        public Value function(String key, Object version, Function<Context, Value> loader) {
+            if (closed) throw new RuntimeException("lease already closed");
+            Handle handle = worker.handles.get(key);
+            if (handle != null && handle.version == version) {
+                return handle.value;
+            }
+            loads.increment();
+            Value value = loader.apply(worker.context);
+            worker.handles.put(key, new Handle(version, value));
+            return value;
+        }
+
+        /**
+         * 执行上下文
+         */
+        public Context context() {
+            if (closed) throw new RuntimeException("lease already closed");
+            return worker.context;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(worker);
+        }
+    }
+
+    /// 已加载的函数句柄及其版本
+    private record Handle(Object version, Value value) {
+    }
+
+    /**
+     * 共享上下文及其函数句柄缓存
+     */
+    private final class SharedWorker {
+        final Context context;
+        final long createdAt = System.nanoTime();
+        /// 使用次数
+        long uses = 0;
+        /// 使用期间登记的待移除函数句柄, 由池的锁保护
+        final List<Predicate<String>> pendingEvictions = new ArrayList<>();
+        /// 按访问顺序排列的函数句柄, 超出上限时移除最久未使用的句柄
+        final LinkedHashMap<String, Handle> handles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Handle> eldest) {
+                if (size() <= maxFunctions) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+
+        SharedWorker(Context context) {
+            this.context = context;
+        }
+
+        void close() {
+            handles.clear();
+            ContextCloseEvent.record(context, "SharedContextPool", createdAt, uses);
+        }
+    }
+}
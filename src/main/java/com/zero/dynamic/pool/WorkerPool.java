@@ -1,9 +1,17 @@
 package com.zero.dynamic.pool;
 
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
@@ -13,30 +21,70 @@ import java.util.function.Supplier;
  * <p> Created on 2025/7/8 16:26 </p>
  */
 @Data
+@Slf4j
 public class WorkerPool implements AutoCloseable {
     /** 对象池大小 */
     private final int size;
     /** 脚本源 */
     // private final Source source;
+    /** 对象池标识, 用于诊断 */
+    private volatile String name;
     /** 是否已释放 */
     private volatile boolean closed = false;
     /** 缓冲队列 */
     private final ArrayBlockingQueue<AbstractWorker> workers;
+    /** 实例构建方式 */
+    private final Supplier<AbstractWorker> supplier;
+    /** 实例回收策略 */
+    private final RecyclePolicy recyclePolicy;
+    /** 待回收的实例 */
+    private final Set<AbstractWorker> retiring = ConcurrentHashMap.newKeySet();
+    /** 已就绪的替代实例, 待回收实例归还时替换, key: 待回收的实例 */
+    private final ConcurrentHashMap<AbstractWorker, AbstractWorker> replacements = new ConcurrentHashMap<>();
+    /** 替换实例与释放对象池互斥 */
+    private final ReentrantLock recycleLock = new ReentrantLock();
+    /** 正在构建替代实例的线程 */
+    private final Set<Thread> recyclers = ConcurrentHashMap.newKeySet();
+    /** 已回收的实例数量 */
+    private final LongAdder recycled = new LongAdder();
+    /** 尚未关闭的实例数量, 对象池释放后随实例归还递减 */
+    private final AtomicInteger open;
+    /** 对象池释放后, 全部实例 (包括使用中的实例与构建中的替代实例) 关闭时完成 */
+    private final CompletableFuture<Void> termination = new CompletableFuture<>();
 
     public WorkerPool(int size, Supplier<AbstractWorker> supplier) {
+        this(size, supplier, RecyclePolicy.NONE);
+    }
+
+    /**
+     * @param size          对象池大小
+     * @param supplier      实例构建方式
+     * @param recyclePolicy 实例回收策略
+     */
+    public WorkerPool(int size, Supplier<AbstractWorker> supplier, RecyclePolicy recyclePolicy) {
         this.size = size;
+        this.supplier = supplier;
+        this.recyclePolicy = recyclePolicy;
         this.workers = new ArrayBlockingQueue<>(size);
+        this.open = new AtomicInteger(size);
         for (int i = 0; i < size; i++) {
-            this.workers.offer(supplier.get());
+            this.workers.offer(this.create());
         }
     }
 
+    private AbstractWorker create() {
+        AbstractWorker worker = supplier.get();
+        if (recyclePolicy.maxAllocatedBytes() > 0) worker.measureAllocation();
+        if (recyclePolicy.enabled() && recyclePolicy.warmupCalls() > 0) worker.recordArgs();
+        return worker;
+    }
+
     /**
      * 获取脚本实例（阻塞式，直到获取到）
      *
      * @return {@link Worker}
      */
-    public Worker poll() throws InterruptedException {
+    public WorkerPoolInvoke poll() throws InterruptedException {
         if (closed)
             throw new RuntimeException("pool already closed");
         return new WorkerPoolInvoke(this);
@@ -47,7 +95,7 @@ public class WorkerPool implements AutoCloseable {
      *
      * @param timeout 超时时间
      */
-    public Worker poll(Duration timeout) throws InterruptedException {
+    public WorkerPoolInvoke poll(Duration timeout) throws InterruptedException {
         if (closed)
             throw new RuntimeException("pool already closed");
         return new WorkerPoolInvoke(this, timeout);
@@ -61,9 +109,14 @@ public class WorkerPool implements AutoCloseable {
      * @return {@link AbstractWorker}
      */
     AbstractWorker take() throws InterruptedException {
-        if (closed)
-            throw new RuntimeException("pool already closed");
-        return workers.take();
+        // 限时等待并重新检查状态, 避免对象池关闭时等待者一直阻塞
+        while (true) {
+            if (closed)
+                throw new RuntimeException("pool already closed");
+            AbstractWorker worker = workers.poll(100, TimeUnit.MILLISECONDS);
+            if (worker != null)
+                return worker;
+        }
     }
 
     /**
@@ -72,24 +125,139 @@ public class WorkerPool implements AutoCloseable {
      * @param worker 脚本实例
      */
     void offer(AbstractWorker worker) {
+        if (closed) {
+            // 对象池已释放, 使用中的实例归还时关闭
+            this.closeWorker(worker);
+            return;
+        }
+        if (!retiring.isEmpty() && retiring.contains(worker)) {
+            AbstractWorker replacement;
+            recycleLock.lock();
+            try {
+                replacement = replacements.remove(worker);
+                // 替代实例就绪前, 旧实例继续提供服务, 对象池容量不变
+                workers.offer(replacement == null ? worker : replacement);
+            } finally {
+                recycleLock.unlock();
+            }
+            if (replacement != null) this.retire(worker);
+            if (closed) this.drain();
+            return;
+        }
+        boolean expired = recyclePolicy.enabled() && !closed && recyclePolicy.expired(worker) && retiring.add(worker);
         workers.offer(worker);
+        // 与 close 并发时, 放入队列的实例可能错过 close 的清理
+        if (closed) this.drain();
+        if (expired) {
+            Thread recycler = Thread.ofVirtual().name("worker-recycle").unstarted(() -> {
+                try {
+                    this.replace(worker);
+                } finally {
+                    recyclers.remove(Thread.currentThread());
+                    if (closed) this.tryTerminate();
+                }
+            });
+            recyclers.add(recycler);
+            recycler.start();
+        }
+    }
+
+    /**
+     * 后台构建并预热替代实例: 旧实例空闲时直接替换, 否则在其归还时替换.
+     */
+    private void replace(AbstractWorker worker) {
+        AbstractWorker replacement;
+        try {
+            replacement = this.create();
+            Object args = worker.takeLastArgs();
+            for (int i = 0; args != null && i < recyclePolicy.warmupCalls(); i++) {
+                replacement.call(args);
+            }
+            // 预热的入参不再保留, 替代实例之后只记录真实调用的入参
+            replacement.takeLastArgs();
+        } catch (Exception e) {
+            // 构建失败时保留旧实例, 下次归还时重试
+            log.error("worker pool [{}] failed to build replacement worker", name, e);
+            retiring.remove(worker);
+            return;
+        }
+        boolean replaced = false;
+        recycleLock.lock();
+        try {
+            if (closed) {
+                closeQuietly(replacement);
+                return;
+            }
+            if (workers.remove(worker)) {
+                workers.offer(replacement);
+                replaced = true;
+            } else {
+                replacements.put(worker, replacement);
+            }
+        } finally {
+            recycleLock.unlock();
+        }
+        if (replaced) this.retire(worker);
+    }
+
+    private void retire(AbstractWorker worker) {
+        retiring.remove(worker);
+        recycled.increment();
+        log.info("worker pool [{}] recycled worker, calls: {}, age: {}, allocated bytes: {}",
+                name, worker.getCalls(), worker.getAge(), worker.getAllocatedBytes());
+        closeQuietly(worker);
+    }
+
+    private static void closeQuietly(AbstractWorker worker) {
+        try {
+            worker.close();
+        } catch (Exception e) {
+            log.warn("close worker failed: {}", e.toString());
+        }
     }
 
 
     /**
-     * 释放对象池资源
+     * 释放对象池资源: 立即关闭空闲的实例, 使用中的实例归还时关闭, 不等待.
+     * 全部实例关闭后 {@link #getTermination()} 完成, 之后才可关闭实例所用的引擎.
      */
     @Override
     public void close() {
-        if (closed)
-            return;
-        closed = true;
-        for (int i = 0; i < size; i++) {
-            try {
-                workers.take().close();
-            } catch (Exception e) {
-                throw new RuntimeException("worker closed", e);
-            }
+        recycleLock.lock();
+        try {
+            if (closed)
+                return;
+            // 在锁内设置, 替换实例时要么看到已释放, 要么在此之前已把替代实例放入队列
+            closed = true;
+            // 尚未替换的替代实例
+            replacements.values().forEach(WorkerPool::closeQuietly);
+            replacements.clear();
+        } finally {
+            recycleLock.unlock();
         }
+        this.drain();
+        this.tryTerminate();
+    }
+
+    /**
+     * 关闭队列中的空闲实例
+     */
+    private void drain() {
+        AbstractWorker worker;
+        while ((worker = workers.poll()) != null) {
+            this.closeWorker(worker);
+        }
+    }
+
+    private void closeWorker(AbstractWorker worker) {
+        closeQuietly(worker);
+        if (open.decrementAndGet() == 0) this.tryTerminate();
+    }
+
+    /**
+     * 全部实例已关闭, 且没有构建中的替代实例时完成
+     */
+    private void tryTerminate() {
+        if (closed && open.get() == 0 && recyclers.isEmpty()) termination.complete(null);
     }
 }
@@ -1,5 +1,6 @@
 package com.zero.dynamic.pool;
 
+import com.zero.dynamic.jfr.PoolCheckoutEvent;
 import com.zero.dynamic.pool.impl.InvokerJSWork;
 import org.graalvm.polyglot.Value;
 
@@ -20,15 +21,23 @@ public class WorkerPoolInvoke implements Worker, AutoCloseable{
     private final AbstractWorker worker;
     /// 实例是否已用完并归还到池中
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    /// 归还后的回调
+    private Runnable onClose;
 
     public WorkerPoolInvoke(WorkerPool pool) throws InterruptedException {
         this.pool = pool;
+        PoolCheckoutEvent event = new PoolCheckoutEvent();
+        event.begin();
         this.worker = pool.take();
+        event.commit(pool.getName(), pool.getSize(), pool.getWorkers().size(), true);
     }
 
     public WorkerPoolInvoke(WorkerPool pool, Duration timeout) throws InterruptedException {
         this.pool = pool;
+        PoolCheckoutEvent event = new PoolCheckoutEvent();
+        event.begin();
         this.worker = pool.getWorkers().poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        event.commit(pool.getName(), pool.getSize(), pool.getWorkers().size(), worker != null);
     }
 
     /**
@@ -43,6 +52,23 @@ public class WorkerPoolInvoke implements Worker, AutoCloseable{
         return worker.call(args);
     }
 
+    /**
+     * 获取池中的脚本实例, 用于调用具体实例的扩展方法, 归还后不可再使用.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractWorker> T unwrap() {
+        if (closed.get())
+            throw new RuntimeException("worker already closed");
+        return (T) worker;
+    }
+
+    /**
+     * 设置实例归还到池中之后的回调
+     */
+    public void onClose(Runnable callback) {
+        this.onClose = callback;
+    }
+
     /**
      * 将实例放入池中
      */
@@ -50,6 +76,7 @@ public class WorkerPoolInvoke implements Worker, AutoCloseable{
     public void close() {
         if (closed.compareAndSet(false, true)) {
             this.pool.offer(worker);
+            if (onClose != null) onClose.run();
         }
     }
 
@@ -0,0 +1,282 @@
+package com.zero.dynamic.pool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 对象池注册表: 统一管理所有脚本的 {@link WorkerPool}, 并限制上下文总数、构建分配量总和.
+ *  - 对象池在首次调用时创建, 记录最近使用时间与构建期间的内存分配量.
+ *    分配量包含构建期间产生的垃圾, 是内存占用的上限近似, 不是保留大小 (retained size).
+ *  - 超出预算时淘汰最久未使用的空闲对象池 (没有调用方持有或等待其实例), 关闭其全部上下文;
+ *    没有空闲对象池可淘汰时, 在实例归还时再次尝试.
+ *  - 被淘汰的对象池在下次调用时透明重建.
+ *
+ * @author Zero.
+ */
+@Slf4j
+public class WorkerPoolRegistry implements AutoCloseable {
+    /// 上下文总数上限, 小于等于 0 表示不限制
+    private final int maxContexts;
+    /// 构建分配量总和上限 (字节), 小于等于 0 表示不限制
+    private final long maxAllocatedBytes;
+    /// 无法统计线程分配量时, 单个上下文的估算分配量 (字节)
+    private final long contextBytes;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>(16);
+    /// 构建中的对象池, 同一标识只由一个调用方构建, 其余调用方等待
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> creating = new ConcurrentHashMap<>();
+    /// 淘汰过程串行执行
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /// 上次淘汰后仍超出预算, 实例归还时再次淘汰
+    private volatile boolean overBudget = false;
+
+    /// 注册表统计信息
+    /// @param allocatedBytes 各对象池构建期间的内存分配量之和 (字节)
+    public record Stats(long hits, long misses, long evictions, int pools, int contexts, long allocatedBytes,
+                        int maxContexts, long maxAllocatedBytes, long recycled) {
+    }
+
+    public WorkerPoolRegistry(int maxContexts, long maxAllocatedBytes, long contextBytes) {
+        this.maxContexts = maxContexts;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.contextBytes = contextBytes;
+    }
+
+    /**
+     * 从指定对象池中获取脚本实例, 对象池不存在 (或已被淘汰) 时创建.
+     *
+     * @param key     对象池标识
+     * @param factory 对象池构建方式
+     * @return {@link WorkerPoolInvoke} 用完后需关闭以归还实例
+     */
+    public WorkerPoolInvoke checkout(String key, Supplier<WorkerPool> factory) throws InterruptedException {
+        while (true) {
+            boolean created = false;
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                // 在 computeIfAbsent 之外构建上下文, 构建期间不占用哈希桶的锁
+                CompletableFuture<Void> pending = new CompletableFuture<>();
+                CompletableFuture<Void> inFlight = creating.putIfAbsent(key, pending);
+                if (inFlight != null) {
+                    awaitCreation(inFlight);
+                    continue;
+                }
+                try {
+                    entry = entries.get(key);
+                    if (entry == null) {
+                        entry = this.create(key, factory);
+                        entries.put(key, entry);
+                        created = true;
+                    }
+                    pending.complete(null);
+                } catch (RuntimeException e) {
+                    pending.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    creating.remove(key, pending);
+                }
+            }
+            if (!entry.retain()) {
+                // 对象池刚被淘汰, 重新获取
+                continue;
+            }
+            (created ? misses : hits).increment();
+            if (created) this.evictIfNecessary();
+            try {
+                WorkerPoolInvoke invoke = entry.pool.poll();
+                Entry retained = entry;
+                invoke.onClose(() -> {
+                    retained.release();
+                    // 创建时没有空闲对象池可淘汰, 对象池变为空闲后再淘汰
+                    if (overBudget) this.evictIfNecessary();
+                });
+                return invoke;
+            } catch (RuntimeException e) {
+                entry.release();
+                // 等待期间对象池被失效, 重新获取
+                if (entry.closed) continue;
+                throw e;
+            } catch (InterruptedException e) {
+                entry.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 等待其他调用方构建对象池, 构建失败时抛出相同的异常
+     */
+    private static void awaitCreation(CompletableFuture<Void> inFlight) throws InterruptedException {
+        try {
+            inFlight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 失效匹配的对象池, 如脚本重新注册或注销. 不等待: 空闲的实例立即关闭, 正在使用的实例归还后关闭.
+     *
+     * @param keys 对象池标识匹配条件
+     * @return 失效的对象池全部实例关闭后完成, 之后才可关闭实例所用的引擎
+     */
+    public CompletableFuture<Void> invalidate(Predicate<String> keys) {
+        List<CompletableFuture<Void>> terminations = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            // 先移除, 新的调用随即重建对象池, 不必等待旧实例归还
+            if (keys.test(e.getKey()) && entries.remove(e.getKey(), e.getValue())) {
+                e.getValue().closed = true;
+                e.getValue().pool.close();
+                terminations.add(e.getValue().pool.getTermination());
+            }
+        }
+        return CompletableFuture.allOf(terminations.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * 统计信息
+     */
+    public Stats stats() {
+        int contexts = 0;
+        long bytes = 0;
+        long recycled = 0;
+        for (Entry entry : entries.values()) {
+            contexts += entry.pool.getSize();
+            bytes += entry.allocatedBytes;
+            recycled += entry.pool.getRecycled().sum();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), contexts, bytes, maxContexts, maxAllocatedBytes, recycled);
+    }
+
+    /**
+     * 构建对象池, 记录构建期间当前线程的内存分配量 (包含垃圾, 作为内存占用的上限近似).
+     */
+    private Entry create(String key, Supplier<WorkerPool> factory) {
+        long before = allocatedBytes();
+        WorkerPool pool = factory.get();
+        long after = allocatedBytes();
+        pool.setName(key);
+        long allocated = before < 0 || after < 0 ? pool.getSize() * contextBytes : after - before;
+        log.info("worker pool created [{}] contexts: {}, allocated bytes: {}", key, pool.getSize(), allocated);
+        return new Entry(key, pool, allocated);
+    }
+
+    /**
+     * 超出预算时, 按最近使用时间淘汰空闲的对象池.
+     */
+    private void evictIfNecessary() {
+        evictLock.lock();
+        try {
+            Stats stats = this.stats();
+            int contexts = stats.contexts();
+            long bytes = stats.allocatedBytes();
+            while ((maxContexts > 0 && contexts > maxContexts) || (maxAllocatedBytes > 0 && bytes > maxAllocatedBytes)) {
+                Entry victim = entries.values().stream()
+                        .filter(Entry::idle)
+                        .min(Comparator.comparingLong(entry -> entry.lastUsed))
+                        .orElse(null);
+                if (victim == null) {
+                    if (!overBudget) {
+                        log.warn("worker pool budget exceeded but no idle pool to evict, contexts: {}, allocated bytes: {}", contexts, bytes);
+                    }
+                    overBudget = true;
+                    return;
+                }
+                if (!victim.tryEvict()) continue;
+                entries.remove(victim.key, victim);
+                victim.pool.close();
+                evictions.increment();
+                contexts -= victim.pool.getSize();
+                bytes -= victim.allocatedBytes;
+                log.info("worker pool evicted [{}] contexts: {}, allocated bytes: {}", victim.key, victim.pool.getSize(), victim.allocatedBytes);
+            }
+            overBudget = false;
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    /**
+     * 当前线程累计分配的内存 (字节), 不支持统计时为 -1
+     */
+    static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * 释放所有对象池, 不等待正在使用的实例
+     */
+    @Override
+    public void close() {
+        this.invalidate(key -> true);
+    }
+
+    /**
+     * 对象池及其使用状态
+     */
+    private static final class Entry {
+        final String key;
+        final WorkerPool pool;
+        /// 构建期间的内存分配量 (字节)
+        final long allocatedBytes;
+        /// 持有或等待实例的调用方数量, -1 表示已被淘汰
+        final AtomicInteger refs = new AtomicInteger();
+        volatile long lastUsed = System.nanoTime();
+        volatile boolean closed = false;
+
+        Entry(String key, WorkerPool pool, long allocatedBytes) {
+            this.key = key;
+            this.pool = pool;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        boolean retain() {
+            while (true) {
+                int current = refs.get();
+                if (current < 0) return false;
+                if (refs.compareAndSet(current, current + 1)) break;
+            }
+            if (closed) {
+                this.release();
+                return false;
+            }
+            lastUsed = System.nanoTime();
+            return true;
+        }
+
+        void release() {
+            lastUsed = System.nanoTime();
+            refs.decrementAndGet();
+        }
+
+        boolean idle() {
+            return refs.get() == 0;
+        }
+
+        boolean tryEvict() {
+            if (!refs.compareAndSet(0, -1)) return false;
+            closed = true;
+            return true;
+        }
+    }
+}
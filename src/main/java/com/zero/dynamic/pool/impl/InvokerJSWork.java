@@ -1,8 +1,15 @@
 package com.zero.dynamic.pool.impl;
 
 import com.zero.dynamic.pool.AbstractWorker;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.random.RandomGenerator;
 
 /**
@@ -12,10 +19,98 @@ import java.util.random.RandomGenerator;
  * <p> Created on 2025/7/8 10:18 </p>
  */
 public class InvokerJSWork extends AbstractWorker {
+    /// 批量调用的辅助函数: 在脚本环境中循环调用目标函数, 收集每个参数的结果与错误
+    public static final Source BATCH = Source.create("js", """
+            (function (fn, args) {
+                const results = new Array(args.length);
+                const errors = new Array(args.length);
+                for (let i = 0; i < args.length; i++) {
+                    try {
+                        results[i] = fn(args[i]);
+                    } catch (e) {
+                        errors[i] = String(e);
+                    }
+                }
+                return [results, errors];
+            })
+            """);
+    /// 批量调用辅助函数的句柄, 首次批量调用时加载
+    private Value batch;
+    /// 函数名: JS 标识符, 拼接进脚本源码前必须校验, 避免向共享的上下文注入代码
+    private static final Pattern FUNCTION_NAME = Pattern.compile("[A-Za-z_$][\\w$]*");
+
     public InvokerJSWork(String script) {
         super("js", script, null);
     }
 
+    /**
+     * @param script         脚本内容
+     * @param funcName       全局函数名
+     * @param contextFactory 上下文构建方式
+     */
+    public InvokerJSWork(String script, String funcName, Supplier<Context> contextFactory) {
+        super("js", script, funcName, contextFactory);
+    }
+
+    /**
+     * @param source         预编译的脚本, 以其名称定位采样分析中的脚本帧
+     * @param funcName       全局函数名
+     * @param contextFactory 上下文构建方式
+     */
+    public InvokerJSWork(Source source, String funcName, Supplier<Context> contextFactory) {
+        super(source, funcName, contextFactory);
+    }
+
+    /**
+     * 将脚本包裹在独立的函数作用域中加载, 返回目标函数, 同一上下文中加载的多个脚本以 var/function 声明的顶层变量、函数互不覆盖.
+     * 这不是安全隔离: 未声明直接赋值的变量 (隐式全局变量)、对 globalThis 的修改以及内置对象原型的修改
+     * 仍然对同一上下文中的其他脚本可见, 只适用于可信的脚本.
+     *
+     * @param context  执行上下文
+     * @param id       脚本ID, 作为 Source 名称
+     * @param script   脚本内容
+     * @param funcName 函数名
+     * @return 函数句柄
+     */
+    public static Value loadScoped(Context context, String id, String script, String funcName) {
+        checkFunctionName(funcName);
+        // 与脚本首行保持同一行, 便于错误定位
+        String scoped = "(function(){" + script + "\n;return " + funcName + ";\n})()";
+        Value func = context.eval(Source.newBuilder("js", scoped, id).buildLiteral());
+        if (func == null || !func.canExecute()) {
+            throw new RuntimeException("script non executable functions: " + id + "#" + funcName);
+        }
+        return func;
+    }
+
+    /**
+     * 校验函数名是否为合法的 JS 标识符
+     *
+     * @return funcName
+     * @throws IllegalArgumentException 函数名不合法
+     */
+    public static String checkFunctionName(String funcName) {
+        if (funcName == null || !FUNCTION_NAME.matcher(funcName).matches()) {
+            throw new IllegalArgumentException("invalid function name: " + funcName);
+        }
+        return funcName;
+    }
+
+    /**
+     * 在一次脚本调用中依次执行一批参数, 单个参数执行失败不影响其余参数.
+     *
+     * @param args 参数列表
+     * @return 二元数组: [结果数组, 错误信息数组], 执行成功的参数错误信息为 undefined
+     */
+    public Value callBatch(List<String> args) {
+        return this.locked(() -> {
+            if (batch == null) {
+                batch = this.context().eval(BATCH);
+            }
+            return batch.execute(this.func(), ProxyArray.fromList(new ArrayList<>(args)));
+        });
+    }
+
     public static void main(String[] args) throws Exception {
         String script = """
                 (function () {
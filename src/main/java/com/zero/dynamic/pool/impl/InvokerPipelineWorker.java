@@ -0,0 +1,88 @@
+package com.zero.dynamic.pool.impl;
+
+import com.zero.dynamic.pool.AbstractWorker;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * JavaScript 脚本流水线: 在同一个上下文中依次执行多个脚本函数.
+ * <p>
+ * 上一阶段的返回值以 {@link Value} 形式直接传入下一阶段, 中间结果始终是 guest 对象, 不会转换为 Java 字符串.
+ * 每个阶段的脚本包裹在独立的函数作用域中执行, 不同脚本以 var/function 声明的同名顶层变量、函数互不覆盖
+ * (隐式全局变量、globalThis 及内置原型的修改仍然共享, 见 {@link InvokerJSWork#loadScoped}).
+ *
+ * @author Zero.
+ */
+public class InvokerPipelineWorker extends AbstractWorker {
+    /// 流水线阶段
+    /// @param id       脚本ID
+    /// @param function 函数名
+    public record Stage(String id, String function) {
+    }
+
+    /// 各阶段的函数句柄
+    private final List<Value> handles;
+
+    /**
+     * @param stages         流水线阶段
+     * @param scripts        脚本ID -> 脚本内容
+     * @param contextFactory 上下文构建方式
+     */
+    public InvokerPipelineWorker(List<Stage> stages, Map<String, String> scripts, Supplier<Context> contextFactory) {
+        this(stages, scripts, contextFactory, new ArrayList<>(stages.size()));
+    }
+
+    private InvokerPipelineWorker(List<Stage> stages, Map<String, String> scripts, Supplier<Context> contextFactory, List<Value> handles) {
+        super(contextFactory, context -> load(context, stages, scripts, handles));
+        this.handles = List.copyOf(handles);
+    }
+
+    /**
+     * 依次加载各阶段脚本, 获取函数句柄.
+     *
+     * @return 第一阶段的函数句柄
+     */
+    private static Value load(Context context, List<Stage> stages, Map<String, String> scripts, List<Value> handles) {
+        for (Stage stage : stages) {
+            String script = scripts.get(stage.id());
+            if (script == null) {
+                throw new RuntimeException("pipeline script not found: " + stage.id());
+            }
+            handles.add(InvokerJSWork.loadScoped(context, stage.id(), script, stage.function()));
+        }
+        return handles.getFirst();
+    }
+
+    /**
+     * 执行整个流水线
+     */
+    @Override
+    public Value call(Object args) {
+        return this.call(args, null);
+    }
+
+    /**
+     * 执行整个流水线, 任一阶段返回 null 时提前结束.
+     *
+     * @param args       第一阶段的入参
+     * @param stageNanos 各阶段耗时 (ns), 为 null 时不统计
+     * @return 最后一个阶段的返回值
+     */
+    public Value call(Object args, long[] stageNanos) {
+        return this.locked(() -> {
+            Value value = null;
+            for (int i = 0; i < handles.size(); i++) {
+                long start = stageNanos == null ? 0 : System.nanoTime();
+                value = handles.get(i).execute(i == 0 ? args : value);
+                if (stageNanos != null) stageNanos[i] = System.nanoTime() - start;
+                if (value.isNull()) break;
+            }
+            return value;
+        });
+    }
+}
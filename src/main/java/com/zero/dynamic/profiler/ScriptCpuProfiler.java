@@ -0,0 +1,178 @@
+package com.zero.dynamic.profiler;
+
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.tools.profiler.CPUSampler;
+import com.oracle.truffle.tools.profiler.CPUSamplerData;
+import com.oracle.truffle.tools.profiler.ProfilerNode;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Engine;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 脚本 CPU 采样分析
+ *  - 在共享的 {@link Engine} 上挂载 GraalVM 内置的 {@link CPUSampler}, 在限定时间窗口内采样.
+ *  - 仅保留包含指定脚本帧的调用栈, 按脚本的 {@code Source} 名称匹配 (JS 脚本以内容摘要命名), 结果中显示为请求的脚本ID.
+ *  - 结果可输出为 collapsed-stack 文本 (flamegraph.pl / speedscope 可直接读取) 或 JSON 调用树.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Service
+public class ScriptCpuProfiler {
+    /// 最长采样窗口
+    public static final Duration MAX_WINDOW = Duration.ofSeconds(60);
+    /// 同一时间只允许一个采样任务, 避免互相清理数据
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /// 采样结果
+    public record CpuProfile(String scriptId, long samples, long periodMillis, long windowMillis,
+                             String collapsed, List<Frame> tree) {
+    }
+
+    /// 调用树节点, self / total 为采样命中次数
+    public record Frame(String name, String source, int line, long self, long total, List<Frame> children) {
+    }
+
+    /**
+     * 对指定脚本进行 CPU 采样
+     *
+     * @param engine   脚本所属引擎
+     * @param scriptId 脚本ID, 即脚本 Source 的名称
+     * @param window   采样时长, 不超过 {@link #MAX_WINDOW}
+     * @param period   采样间隔 (ms), 大于 0
+     * @return {@link CpuProfile}
+     */
+    public CpuProfile profile(Engine engine, String scriptId, Duration window, long period) throws InterruptedException {
+        return this.profile(engine, scriptId, scriptId, window, period);
+    }
+
+    /**
+     * 对指定脚本进行 CPU 采样, 脚本 Source 名称与脚本ID不同时 (如按内容摘要命名的共享 Source), 结果中显示为脚本ID.
+     *
+     * @param engine   脚本所属引擎
+     * @param source   脚本 Source 的名称
+     * @param scriptId 请求采样的脚本ID
+     * @param window   采样时长, 不超过 {@link #MAX_WINDOW}
+     * @param period   采样间隔 (ms), 大于 0
+     * @return {@link CpuProfile}
+     */
+    public CpuProfile profile(Engine engine, String source, String scriptId, Duration window, long period) throws InterruptedException {
+        if (window.isNegative() || window.isZero() || window.compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("profile window must be in (0, " + MAX_WINDOW.toSeconds() + "s]");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("sampling period must be positive: " + period);
+        }
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("another profiling session is running");
+        }
+        try {
+            CPUSampler sampler = CPUSampler.find(engine);
+            sampler.clearData();
+            sampler.setPeriod(period);
+            sampler.setCollecting(true);
+            log.info("cpu sampler attached, script [{}] window {}ms", scriptId, window.toMillis());
+            try {
+                Thread.sleep(window);
+            } finally {
+                sampler.setCollecting(false);
+            }
+            List<CPUSamplerData> data = sampler.getDataList();
+            sampler.clearData();
+            return this.collect(source, scriptId, data, period, window.toMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 汇总所有上下文、所有线程的采样数据, 只保留涉及指定脚本的调用栈.
+     */
+    private CpuProfile collect(String source, String scriptId, List<CPUSamplerData> data, long period, long window) {
+        Map<String, Long> stacks = new TreeMap<>();
+        List<Frame> tree = new ArrayList<>();
+        long samples = 0;
+        for (CPUSamplerData contextData : data) {
+            for (Collection<ProfilerNode<CPUSampler.Payload>> roots : contextData.getThreadData().values()) {
+                for (ProfilerNode<CPUSampler.Payload> root : roots) {
+                    samples += this.collapse(source, scriptId, root, new ArrayDeque<>(), false, stacks);
+                    Frame frame = this.toFrame(source, scriptId, root);
+                    if (frame != null) tree.add(frame);
+                }
+            }
+        }
+        StringBuilder collapsed = new StringBuilder();
+        stacks.forEach((stack, count) -> collapsed.append(stack).append(' ').append(count).append('\n'));
+        return new CpuProfile(scriptId, samples, period, window, collapsed.toString(), tree);
+    }
+
+    /**
+     * 深度优先展开调用树为 collapsed-stack: {@code root;child;leaf selfCount}
+     *
+     * @param matched 当前路径上是否已经出现过该脚本的帧
+     * @return 记录的采样数
+     */
+    private long collapse(String source, String scriptId, ProfilerNode<CPUSampler.Payload> node, Deque<String> path,
+                          boolean matched, Map<String, Long> stacks) {
+        path.addLast(frameName(source, scriptId, node));
+        matched = matched || isScriptFrame(source, node);
+        long samples = 0;
+        int self = node.getPayload().getSelfHitCount();
+        if (matched && self > 0) {
+            stacks.merge(String.join(";", path), (long) self, Long::sum);
+            samples += self;
+        }
+        for (ProfilerNode<CPUSampler.Payload> child : node.getChildren()) {
+            samples += this.collapse(source, scriptId, child, path, matched, stacks);
+        }
+        path.removeLast();
+        return samples;
+    }
+
+    /**
+     * 转换为 JSON 调用树, 丢弃不包含该脚本帧的子树.
+     */
+    private Frame toFrame(String source, String scriptId, ProfilerNode<CPUSampler.Payload> node) {
+        List<Frame> children = new ArrayList<>();
+        for (ProfilerNode<CPUSampler.Payload> child : node.getChildren()) {
+            Frame frame = this.toFrame(source, scriptId, child);
+            if (frame != null) children.add(frame);
+        }
+        if (children.isEmpty() && !isScriptFrame(source, node)) {
+            return null;
+        }
+        SourceSection section = node.getSourceSection();
+        CPUSampler.Payload payload = node.getPayload();
+        return new Frame(node.getRootName(),
+                section == null ? null : sourceLabel(source, scriptId, section),
+                section == null || !section.isAvailable() ? 0 : section.getStartLine(),
+                payload.getSelfHitCount(), payload.getHitCount(), children);
+    }
+
+    private static boolean isScriptFrame(String source, ProfilerNode<?> node) {
+        SourceSection section = node.getSourceSection();
+        return section != null && source.equals(section.getSource().getName());
+    }
+
+    /**
+     * 帧所在 Source 的名称, 被采样脚本的 Source 显示为请求的脚本ID
+     */
+    private static String sourceLabel(String source, String scriptId, SourceSection section) {
+        String name = section.getSource().getName();
+        return source.equals(name) ? scriptId : name;
+    }
+
+    private static String frameName(String source, String scriptId, ProfilerNode<?> node) {
+        SourceSection section = node.getSourceSection();
+        String name = node.getRootName() == null || node.getRootName().isEmpty() ? "<anonymous>" : node.getRootName();
+        if (section == null || !section.isAvailable()) {
+            return name;
+        }
+        // collapsed-stack 以 ';' 分隔帧
+        return (name + " (" + sourceLabel(source, scriptId, section) + ":" + section.getStartLine() + ")").replace(';', ',');
+    }
+}
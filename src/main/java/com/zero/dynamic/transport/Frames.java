@@ -0,0 +1,188 @@
+package com.zero.dynamic.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制帧协议, 所有整数均为大端序, 每个帧以 4 字节的帧长度 (不含长度字段本身) 开头.
+ * <pre>
+ * 请求: [length:int][requestId:int][lang:byte][idLength:short][id][functionLength:short][function][payload]
+ * 响应: [length:int][requestId:int][status:byte][payload]
+ * </pre>
+ * 同一连接上的请求可以连续发送而无需等待响应 (流水线), 响应按执行完成的顺序返回, 以 requestId 对应请求.
+ *
+ * @author Zero.
+ */
+public final class Frames {
+    public static final byte LANG_JS = 1;
+    public static final byte LANG_PYTHON = 2;
+    public static final byte LANG_EXPR = 3;
+
+    /// 执行成功, payload 为返回值
+    public static final byte STATUS_OK = 0;
+    /// 执行成功, 返回值为 null (或脚本未注册)
+    public static final byte STATUS_NULL = 1;
+    /// 执行失败, payload 为错误信息
+    public static final byte STATUS_ERROR = 2;
+
+    /// 单个帧的长度上限
+    public static final int MAX_FRAME = 16 << 20;
+    /// 脚本ID、函数名编码后的长度上限, 以无符号 short 写入
+    public static final int MAX_NAME = 0xFFFF;
+
+    /// 请求帧
+    public record Request(int requestId, byte lang, String id, String function, byte[] payload) {
+    }
+
+    /// 响应帧
+    public record Response(int requestId, byte status, byte[] payload) {
+    }
+
+    private Frames() {
+    }
+
+    /**
+     * 解析监听/连接地址: {@code unix:/path/to/socket} 为 Unix domain socket, 否则为 {@code host:port} 或 {@code :port}.
+     */
+    public static SocketAddress address(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("invalid socket address: " + address);
+        String host = address.substring(0, colon);
+        int port = Integer.parseInt(address.substring(colon + 1));
+        return host.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+    }
+
+    public static ByteBuffer encode(Request request) {
+        byte[] id = request.id().getBytes(StandardCharsets.UTF_8);
+        byte[] function = request.function().getBytes(StandardCharsets.UTF_8);
+        checkName("id", id);
+        checkName("function", function);
+        int length = 4 + 1 + 2 + id.length + 2 + function.length + request.payload().length;
+        checkLength(length);
+        return ByteBuffer.allocate(4 + length)
+                .putInt(length)
+                .putInt(request.requestId())
+                .put(request.lang())
+                .putShort((short) id.length).put(id)
+                .putShort((short) function.length).put(function)
+                .put(request.payload())
+                .flip();
+    }
+
+    public static ByteBuffer encode(Response response) {
+        int length = 4 + 1 + response.payload().length;
+        checkLength(length);
+        return ByteBuffer.allocate(4 + length)
+                .putInt(length)
+                .putInt(response.requestId())
+                .put(response.status())
+                .put(response.payload())
+                .flip();
+    }
+
+    public static Request decodeRequest(ByteBuffer frame) {
+        int requestId = frame.getInt();
+        byte lang = frame.get();
+        String id = string(frame, Short.toUnsignedInt(frame.getShort()));
+        String function = string(frame, Short.toUnsignedInt(frame.getShort()));
+        return new Request(requestId, lang, id, function, remaining(frame));
+    }
+
+    public static Response decodeResponse(ByteBuffer frame) {
+        int requestId = frame.getInt();
+        byte status = frame.get();
+        return new Response(requestId, status, remaining(frame));
+    }
+
+    /**
+     * 完整写出一个帧
+     */
+    public static void write(WritableByteChannel channel, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static void checkLength(int length) {
+        if (length > MAX_FRAME) throw new IllegalArgumentException("frame too large: " + length);
+    }
+
+    private static void checkName(String field, byte[] value) {
+        if (value.length > MAX_NAME) throw new IllegalArgumentException(field + " too long: " + value.length + " bytes");
+    }
+
+    private static String string(ByteBuffer frame, int length) {
+        String value = new String(frame.array(), frame.arrayOffset() + frame.position(), length, StandardCharsets.UTF_8);
+        frame.position(frame.position() + length);
+        return value;
+    }
+
+    private static byte[] remaining(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 带缓冲的帧读取: 一次读取尽可能多的字节, 流水线请求的多个帧只需一次系统调用.
+     */
+    public static final class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 << 10).flip();
+
+        public Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * 读取下一个帧 (不含长度字段)
+         *
+         * @return 帧内容, 连接在帧边界处关闭时为 null
+         */
+        public ByteBuffer next() throws IOException {
+            if (!this.fill(4)) return null;
+            int length = buffer.getInt(buffer.position());
+            if (length < 0 || length > MAX_FRAME) throw new IOException("invalid frame length: " + length);
+            if (!this.fill(4 + length)) throw new EOFException("connection closed in the middle of a frame");
+            buffer.position(buffer.position() + 4);
+            ByteBuffer frame = ByteBuffer.allocate(length);
+            frame.put(frame.position(), buffer, buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            return frame;
+        }
+
+        /**
+         * 确保缓冲区中至少有 {@code bytes} 个可读字节
+         *
+         * @return 连接已关闭且缓冲区为空时为 false
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return true;
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes).put(buffer).flip();
+            }
+            buffer.compact();
+            try {
+                while (buffer.position() < bytes) {
+                    if (channel.read(buffer) < 0) {
+                        if (buffer.position() == 0) return false;
+                        throw new EOFException("connection closed in the middle of a frame");
+                    }
+                }
+            } finally {
+                buffer.flip();
+            }
+            return true;
+        }
+    }
+}
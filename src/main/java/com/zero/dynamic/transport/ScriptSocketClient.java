@@ -0,0 +1,141 @@
+package com.zero.dynamic.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ScriptSocketServer} 客户端, 线程安全.
+ * <p>
+ * 多个线程共享同一个连接: 请求帧直接写出, 不等待前一个请求的响应 (流水线),
+ * 由一个虚拟线程读取响应帧, 按 requestId 完成对应的调用.
+ *
+ * @author Zero.
+ */
+@Slf4j
+public class ScriptSocketClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, CompletableFuture<String>> pending = new ConcurrentHashMap<>(64);
+    private final Thread receiver;
+
+    /**
+     * @param address {@code unix:/path/to/socket}, {@code host:port}
+     */
+    public static ScriptSocketClient connect(String address) throws IOException {
+        return connect(Frames.address(address));
+    }
+
+    public static ScriptSocketClient connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            channel.connect(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ScriptSocketClient(channel);
+    }
+
+    private ScriptSocketClient(SocketChannel channel) {
+        this.channel = channel;
+        this.receiver = Thread.ofVirtual().name("script-socket-client").start(this::receive);
+    }
+
+    /**
+     * 执行脚本函数, 阻塞直到返回.
+     *
+     * @param lang     {@link Frames#LANG_JS} / {@link Frames#LANG_PYTHON} / {@link Frames#LANG_EXPR}
+     * @param id       脚本ID
+     * @param function 函数名
+     * @param args     函数参数
+     * @return 函数返回值, 脚本未注册或返回 null 时为 null
+     */
+    public String call(byte lang, String id, String function, String args) throws IOException, InterruptedException {
+        try {
+            return this.callAsync(lang, id, function, args).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 发送请求, 不等待响应.
+     *
+     * @return 函数返回值; 服务端执行失败时以 {@link RuntimeException} 结束, 连接断开时以 {@link IOException} 结束
+     */
+    public CompletableFuture<String> callAsync(byte lang, String id, String function, String args) {
+        int requestId = requestIds.incrementAndGet();
+        // 先编码, 参数非法时不登记等待中的请求
+        ByteBuffer frame = Frames.encode(new Frames.Request(requestId, lang, id, function, args.getBytes(StandardCharsets.UTF_8)));
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+        writeLock.lock();
+        try {
+            Frames.write(channel, frame);
+        } catch (IOException e) {
+            pending.remove(requestId);
+            future.completeExceptionally(e);
+        } finally {
+            writeLock.unlock();
+        }
+        return future;
+    }
+
+    private void receive() {
+        Frames.Reader reader = new Frames.Reader(channel);
+        IOException cause = new ClosedChannelException();
+        try {
+            ByteBuffer frame;
+            while ((frame = reader.next()) != null) {
+                Frames.Response response = Frames.decodeResponse(frame);
+                CompletableFuture<String> future = pending.remove(response.requestId());
+                if (future == null) {
+                    log.warn("unexpected script socket response: {}", response.requestId());
+                    continue;
+                }
+                String payload = new String(response.payload(), StandardCharsets.UTF_8);
+                switch (response.status()) {
+                    case Frames.STATUS_OK -> future.complete(payload);
+                    case Frames.STATUS_NULL -> future.complete(null);
+                    default -> future.completeExceptionally(new RuntimeException(payload));
+                }
+            }
+        } catch (IOException e) {
+            cause = e;
+        } finally {
+            // 连接断开, 未返回的调用全部失败
+            for (Integer requestId : pending.keySet()) {
+                CompletableFuture<String> future = pending.remove(requestId);
+                if (future != null) future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        try {
+            receiver.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
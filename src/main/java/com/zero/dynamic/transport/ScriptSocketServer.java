@@ -0,0 +1,211 @@
+package com.zero.dynamic.transport;
+
+import com.zero.dynamic.invoker.ExpressionInvoker;
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.PythonScriptInvoker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 二进制 socket 接入 (协议见 {@link Frames}): 供内部调用方绕过 HTTP 请求解析与响应序列化的开销.
+ *  - 监听 TCP 或 Unix domain socket, 每个连接由一个虚拟线程读取请求帧.
+ *  - 每个请求由独立的虚拟线程执行, 同一连接上的请求可流水线发送, 响应按完成顺序写回.
+ *  - 单个连接同时执行的请求数有上限, 达到上限后暂停读取该连接, 由 socket 缓冲区向客户端施加背压.
+ *  - Python 运行时可通过 script.python.enabled=false 关闭, 关闭后 Python 请求返回错误.
+ *  - 直接调用与 HTTP 接口相同的执行器, 不经过集群路由.
+ *
+ * @author Zero.
+ */
+@Slf4j
+@Component
+public class ScriptSocketServer {
+    /// 停止时等待执行中请求的最长时间, 超时后中断执行线程
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(5);
+    private final JavaScriptInvoker jsInvoker;
+    /// 关闭 Python 运行时 (script.python.enabled=false) 时为 null
+    private final PythonScriptInvoker pythonScriptInvoker;
+    private final ExpressionInvoker expressionInvoker;
+    /// 监听地址, 为空时不启动
+    private final String address;
+    /// 单个连接同时执行的请求数上限
+    private final int maxInFlight;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    /// 请求执行线程
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    /// Python 执行器按线程持有上下文, 使用固定的平台线程, 避免每个虚拟线程都创建上下文
+    private final ExecutorService pythonExecutor;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+
+    public ScriptSocketServer(JavaScriptInvoker jsInvoker, @Nullable PythonScriptInvoker pythonScriptInvoker,
+                              ExpressionInvoker expressionInvoker,
+                              @Value("${script.socket.address:}") String address,
+                              @Value("${script.socket.python-threads:4}") int pythonThreads,
+                              @Value("${script.socket.max-in-flight:256}") int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("script.socket.max-in-flight must be positive: " + maxInFlight);
+        this.jsInvoker = jsInvoker;
+        this.pythonScriptInvoker = pythonScriptInvoker;
+        this.expressionInvoker = expressionInvoker;
+        this.address = address;
+        this.maxInFlight = maxInFlight;
+        this.pythonExecutor = Executors.newFixedThreadPool(pythonThreads, Thread.ofPlatform().name("script-socket-python-", 0).factory());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!StringUtils.hasText(address)) return;
+        SocketAddress local = Frames.address(address);
+        if (local instanceof UnixDomainSocketAddress unix) {
+            // 上次未正常退出时遗留的 socket 文件
+            Files.deleteIfExists(unix.getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(local);
+        acceptor = Thread.ofVirtual().name("script-socket-acceptor").start(this::accept);
+        log.info("script socket listening on {}", server.getLocalAddress());
+    }
+
+    /**
+     * 实际监听的地址, 监听端口为 0 时可由此获取分配的端口
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return server == null ? null : server.getLocalAddress();
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                connections.add(channel);
+                Thread.ofVirtual().name("script-socket-connection").start(() -> this.serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("accept script socket connection failed", e);
+            }
+        }
+    }
+
+    /**
+     * 持续读取请求帧, 每个请求交给独立的线程执行; 执行中的请求达到上限时, 等待有请求完成后再读取下一帧.
+     */
+    private void serve(SocketChannel channel) {
+        ReentrantLock writeLock = new ReentrantLock();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Frames.Reader reader = new Frames.Reader(channel);
+        try (channel) {
+            ByteBuffer frame;
+            while ((frame = reader.next()) != null) {
+                Frames.Request request = Frames.decodeRequest(frame);
+                inFlight.acquire();
+                try {
+                    (request.lang() == Frames.LANG_PYTHON ? pythonExecutor : executor).execute(() -> {
+                        try {
+                            this.reply(channel, writeLock, request);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        } catch (ClosedChannelException | InterruptedException e) {
+            // 服务关闭
+        } catch (IOException | RuntimeException e) {
+            log.warn("script socket connection closed: {}", e.toString());
+        } finally {
+            connections.remove(channel);
+        }
+    }
+
+    private void reply(SocketChannel channel, ReentrantLock writeLock, Frames.Request request) {
+        Frames.Response response;
+        try {
+            String ret = this.invoke(request);
+            response = ret == null
+                    ? new Frames.Response(request.requestId(), Frames.STATUS_NULL, new byte[0])
+                    : new Frames.Response(request.requestId(), Frames.STATUS_OK, ret.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.error("script socket call [{}#{}] failed", request.id(), request.function(), e);
+            String message = Objects.requireNonNullElse(e.getMessage(), e.getClass().getName());
+            response = new Frames.Response(request.requestId(), Frames.STATUS_ERROR, message.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteBuffer frame = Frames.encode(response);
+        writeLock.lock();
+        try {
+            Frames.write(channel, frame);
+        } catch (IOException e) {
+            log.warn("write script socket response failed: {}", e.toString());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private String invoke(Frames.Request request) throws InterruptedException {
+        String args = new String(request.payload(), StandardCharsets.UTF_8);
+        return switch (request.lang()) {
+            case Frames.LANG_JS -> jsInvoker.callPooled(request.id(), request.function(), args);
+            case Frames.LANG_PYTHON -> {
+                if (pythonScriptInvoker == null) throw new IllegalStateException("python runtime not available");
+                yield Objects.toString(pythonScriptInvoker.call(request.id(), request.function(), args), null);
+            }
+            case Frames.LANG_EXPR -> expressionInvoker.call(request.id(), args);
+            default -> throw new IllegalArgumentException("unsupported language: " + request.lang());
+        };
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (server != null) {
+            server.close();
+            acceptor.join();
+            for (SocketChannel channel : connections) {
+                channel.close();
+            }
+            if (Frames.address(address) instanceof UnixDomainSocketAddress unix) {
+                Files.deleteIfExists(unix.getPath());
+            }
+        }
+        // 不无限等待执行中的脚本: 超时后中断, 连接已关闭, 其结果不再写回
+        executor.shutdown();
+        pythonExecutor.shutdown();
+        long deadline = System.nanoTime() + STOP_TIMEOUT.toNanos();
+        for (ExecutorService service : List.of(executor, pythonExecutor)) {
+            if (!service.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("script socket requests still running after {}, interrupting", STOP_TIMEOUT);
+                service.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+// 示例脚本: 从邮件正文中提取验证码
+var patterns = [
+    /<b>(\d{6})<\/b>/,
+    /verification page:[\s\S]*?(\d{6})[\s\S]*?/,
+    /<b><p>(\d{6})<\/p></,
+    />\s*<b>(\d{6})<\/b>/,
+    /\n(\d{6})\r/
+];
+
+function decode(content) {
+    for (var i = 0; i < patterns.length; i++) {
+        var match = content.match(patterns[i]);
+        if (match) {
+            return match[1];
+        }
+    }
+    return null;
+}
@@ -0,0 +1,18 @@
+# 示例脚本: 从邮件正文中提取验证码
+import re
+
+patterns = [
+    r"<b>(\d{6})<\/b>",
+    r"verification page:[\s\S]*?(\d{6})[\s\S]*?",
+    r"<b><p>(\d{6})<\/p>",
+    r">\s*<b>(\d{6})<\/b>",
+    r"\n(\d{6})\r"
+]
+
+
+def decode(content):
+    for pat in patterns:
+        match = re.search(pat, content)
+        if match:
+            return match.group(1)
+    return None
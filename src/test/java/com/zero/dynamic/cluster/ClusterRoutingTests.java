@@ -0,0 +1,119 @@
+package com.zero.dynamic.cluster;
+
+import com.zero.dynamic.DynamicScriptApplication;
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.PatternSetInvoker;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 一致性哈希分布, 以及本机多节点下的请求转发与多脚本ID请求的拒绝
+ */
+class ClusterRoutingTests {
+
+    @Test
+    void ringSpreadsKeysAndMovesFewOnJoin() {
+        List<String> three = List.of("http://a", "http://b", "http://c");
+        ConsistentHashRing before = new ConsistentHashRing(three, 160);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("http://a", "http://b", "http://c", "http://d"), 160);
+
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) {
+            String key = "tenant-" + i;
+            counts.merge(before.owner(key), 1, Integer::sum);
+            if (!before.owner(key).equals(after.owner(key))) {
+                moved++;
+                // 只会迁移到新节点
+                assertThat(after.owner(key)).isEqualTo("http://d");
+            }
+        }
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(keys / 5, keys / 2));
+        assertThat(moved).isBetween(keys / 8, keys / 3);
+    }
+
+    @Test
+    void nonOwnerForwardsToOwner() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        String nodeA = "http://localhost:" + portA;
+        String nodeB = "http://localhost:" + portB;
+        String members = nodeA + "," + nodeB;
+        try (ConfigurableApplicationContext a = start(portA, members);
+             ConfigurableApplicationContext b = start(portB, members)) {
+            ConsistentHashRing ring = new ConsistentHashRing(List.of(nodeA, nodeB), 160);
+            String id = IntStream.range(0, 100).mapToObj(i -> "tenant-" + i)
+                    .filter(key -> ring.owner(key).equals(nodeB))
+                    .findFirst().orElseThrow();
+
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> registered = client.send(HttpRequest.newBuilder(URI.create(nodeA + "/script/js/register?id=" + id))
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString("function decode(c) { return 'decoded:' + c; }"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(registered.statusCode()).isEqualTo(200);
+            assertThat(registered.headers().firstValue(ClusterRouter.OWNER_HEADER)).contains(nodeB);
+
+            // 只有所属节点注册了脚本
+            assertThat(a.getBean(JavaScriptInvoker.class).contains(id)).isFalse();
+            assertThat(b.getBean(JavaScriptInvoker.class).contains(id)).isTrue();
+
+            for (String node : List.of(nodeA, nodeB)) {
+                HttpResponse<String> executed = client.send(HttpRequest.newBuilder(URI.create(node + "/script/js/execute?id=" + id + "&content=x"))
+                        .GET().build(), HttpResponse.BodyHandlers.ofString());
+                assertThat(executed.statusCode()).isEqualTo(200);
+                assertThat(executed.body()).isEqualTo("decoded:x");
+            }
+
+            // 正则集合同样按 id 转发, 非所属节点不会返回 null
+            client.send(HttpRequest.newBuilder(URI.create(nodeA + "/script/pattern/register?id=" + id))
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString("code:(\\d+)"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(b.getBean(PatternSetInvoker.class).call(id, "code:42")).isEqualTo("42");
+            HttpResponse<String> pattern = client.send(HttpRequest.newBuilder(URI.create(nodeA + "/script/pattern/execute?id=" + id + "&content=code:42"))
+                    .GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(pattern.body()).isEqualTo("42");
+
+            // 多个脚本ID属于同一节点时转发, 分布在不同节点时拒绝
+            HttpResponse<String> any = client.send(HttpRequest.newBuilder(URI.create(nodeA + "/script/js/execute/any?ids=" + id + "&content=x"))
+                    .GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(any.statusCode()).isEqualTo(200);
+            assertThat(any.body()).contains("decoded:x");
+            String local = IntStream.range(0, 100).mapToObj(i -> "tenant-" + i)
+                    .filter(key -> ring.owner(key).equals(nodeA))
+                    .findFirst().orElseThrow();
+            HttpResponse<String> all = client.send(HttpRequest.newBuilder(URI.create(nodeA + "/script/js/execute/all?ids=" + id + "," + local + "&content=x"))
+                    .GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(all.statusCode()).isEqualTo(ClusterRoutingInterceptor.MISDIRECTED_REQUEST);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int port, String members) {
+        return SpringApplication.run(DynamicScriptApplication.class,
+                "--server.port=" + port,
+                "--script.cluster.enabled=true",
+                "--script.cluster.self=http://localhost:" + port,
+                "--script.cluster.members=" + members);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * 并发执行多个脚本: 最快的匹配结果立即返回, 较慢的脚本被中断
+ */
+class CallAnyTests {
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        // 每个脚本只有一个上下文, 慢脚本未被中断时后续调用无法获取上下文
+        ReflectionTestUtils.setField(jsInvoker, "poolSize", 1);
+        jsInvoker.register("slow", "function decode(content) { if (content === 'spin') { while (true) {} } return 'slow:' + content; }");
+        jsInvoker.register("fast", "function decode(content) { return 'fast:' + content; }");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void slowScriptDoesNotDelayFastResult() {
+        JavaScriptInvoker.ScriptResult result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> jsInvoker.callAny(List.of("slow", "fast"), "decode", "spin"));
+        assertThat(result).isEqualTo(new JavaScriptInvoker.ScriptResult("fast", "fast:spin"));
+        // 慢脚本的执行被中断, 上下文归还后可继续使用
+        String ret = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> jsInvoker.callPooled("slow", "decode", "ok"));
+        assertThat(ret).isEqualTo("slow:ok");
+    }
+
+    @Test
+    void tasksShareBoundedThreads() throws Exception {
+        ReflectionTestUtils.setField(jsInvoker, "callAnyThreads", 2);
+        for (int i = 0; i < 20; i++) {
+            assertThat(jsInvoker.callAny(List.of("slow", "fast"), "decode", "x")).isNotNull();
+        }
+        long threads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("call-any-"))
+                .count();
+        assertThat(threads).isLessThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.CallCoalescer;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 调用合并: 并发调用合并执行, 每个调用方得到自己的结果
+ */
+class CallCoalescerTests {
+    private static final String SCRIPT = """
+            function echo(content) {
+                if (content === 'boom') throw new Error('boom');
+                return content === 'none' ? null : content.toUpperCase();
+            }
+            """;
+
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("echo", SCRIPT);
+        jsInvoker.enableCoalescing(Duration.ofMillis(20), 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void concurrentCallsAreBatched() throws Exception {
+        int callers = 64;
+        List<Future<String>> futures = new ArrayList<>(callers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                String args = "call-" + i;
+                futures.add(executor.submit(() -> jsInvoker.callPooled("echo", "echo", args)));
+            }
+        }
+        for (int i = 0; i < callers; i++) {
+            assertThat(futures.get(i).get()).isEqualTo("CALL-" + i);
+        }
+        CallCoalescer.Stats stats = jsInvoker.getCoalescer().stats();
+        assertThat(stats.calls()).isEqualTo(callers);
+        assertThat(stats.batches()).isLessThan(callers);
+    }
+
+    @Test
+    void failuresStayWithTheirCaller() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> ok = executor.submit(() -> jsInvoker.callPooled("echo", "echo", "ok"));
+            Future<String> none = executor.submit(() -> jsInvoker.callPooled("echo", "echo", "none"));
+            Future<String> boom = executor.submit(() -> jsInvoker.callPooled("echo", "echo", "boom"));
+            assertThat(ok.get()).isEqualTo("OK");
+            assertThat(none.get()).isNull();
+            assertThatThrownBy(boom::get).hasRootCauseMessage("script [echo] execute failed: Error: boom");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.zero.dynamic.invoker;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * 表达式编译器: 语义、类型检查, 与正则集合结果一致, 隐藏类可卸载
+ */
+class ExpressionCompilerTests {
+    private final ExpressionCompiler compiler = new ExpressionCompiler();
+
+    @Test
+    void evaluatesOperators() {
+        assertThat(eval("input.trim().upper()", "  abc ")).isEqualTo("ABC");
+        assertThat(eval("input.length() + 1", "abcd")).isEqualTo("5");
+        assertThat(eval("'n=' + input.length() + ',' + input.isEmpty()", "")).isEqualTo("n=0,true");
+        assertThat(eval("input.contains('b') && !input.startsWith('b') || false", "abc")).isEqualTo("true");
+        assertThat(eval("input.length() >= 3 ? input.substring(1, 100) : null", "abc")).isEqualTo("bc");
+        assertThat(eval("input.length() >= 3 ? input.substring(1, 100) : null", "ab")).isNull();
+        assertThat(eval("input == 'x' || input < 'b'", "a")).isEqualTo("true");
+        assertThat(eval("input.replace('-', '').indexOf('c') - -1", "a-b-c")).isEqualTo("3");
+        assertThat(eval("input.test('\\d{3}') != input.test('[a-z]')", "123")).isEqualTo("true");
+        // test 查找子串, 整体匹配需要锚定
+        assertThat(eval("input.test('\\d{3}')", "a123b")).isEqualTo("true");
+        assertThat(eval("input.test('^\\d{3}$')", "a123b")).isEqualTo("false");
+        assertThat(eval("input.extract('(\\w+)@(\\w+)', 2) ?? 'none'", "mail zero@example")).isEqualTo("example");
+        assertThat(eval("input.extract('(\\w+)@(\\w+)', 2) ?? 'none'", "no mail")).isEqualTo("none");
+        assertThat(eval("input.extract('\\d+')", "id 42")).isEqualTo("42");
+        assertThat(eval("(input.extract('x(\\d)') ?? '').length()", "abc")).isEqualTo("0");
+        assertThat(eval("'code: ' + input.extract('x(\\d)')", "abc")).isEqualTo("code: null");
+        assertThat(eval("input.extract('x(\\d)') == null", "abc")).isEqualTo("true");
+    }
+
+    @Test
+    void typesLongChainsInLinearTime() {
+        String expression = "input.length()" + " + 1".repeat(200);
+        String result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> eval(expression, "abc"));
+        assertThat(result).isEqualTo("203");
+    }
+
+    @Test
+    void rejectsInvalidExpressions() {
+        assertThatThrownBy(() -> compiler.compile("input + ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compiler.compile("input && true")).hasMessageContaining("'&&'");
+        assertThatThrownBy(() -> compiler.compile("input.length() == 'a'")).hasMessageContaining("type mismatch");
+        assertThatThrownBy(() -> compiler.compile("input.test(input)")).hasMessageContaining("literals");
+        assertThatThrownBy(() -> compiler.compile("input.test('(')")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compiler.compile("input.matches('a')")).hasMessageContaining("unsupported method");
+        assertThatThrownBy(() -> compiler.compile("input.extract('(a)', 2)")).hasMessageContaining("no group 2");
+        assertThatThrownBy(() -> compiler.compile("input.foo()")).hasMessageContaining("unsupported method");
+        // extract 未匹配时为 null, 须先提供默认值
+        assertThatThrownBy(() -> compiler.compile("input.extract('x(\\d)').length()")).hasMessageContaining("??");
+        assertThatThrownBy(() -> compiler.compile("input.extract('x(\\d)').trim()")).hasMessageContaining("may be null");
+        assertThatThrownBy(() -> compiler.compile("input.contains(input.extract('x'))")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compiler.compile("(input.isEmpty() ? null : input).length()")).hasMessageContaining("may be null");
+    }
+
+    @Test
+    void matchesPatternSetVersion() throws Exception {
+        PatternSetInvoker patterns = new PatternSetInvoker();
+        patterns.register("verify-code", read("scripts/verify-code.patterns"));
+        Function<String, String> expression = compiler.compile(read("scripts/verify-code.expr"));
+        for (String content : List.of(
+                "请在电子邮件验证页面输入下方验证码：\r\n\r\n <b>482913</b> \r\n\r\n此电子邮件发出 3 小时后，验证码将过期。",
+                "Enter the code on the verification page: your code is 739201, it expires soon.",
+                "<div><b><p>105938</p></b></div>",
+                "<td>  <b>662014</b></td>",
+                "Your code:\n918273\r\nThanks",
+                "code 12345 is too short",
+                "")) {
+            assertThat(expression.apply(content)).as(content).isEqualTo(patterns.call("verify-code", content));
+        }
+    }
+
+    @Test
+    void hiddenClassesAreUnloadable() throws Exception {
+        Function<String, String> function = compiler.compile("input.upper()");
+        WeakReference<Class<?>> type = new WeakReference<>(function.getClass());
+        assertThat(function.getClass().isHidden()).isTrue();
+        assertThat(function.apply("a")).isEqualTo("A");
+        function = null;
+        for (int i = 0; i < 20 && type.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(type.get()).isNull();
+    }
+
+    private String eval(String expression, String input) {
+        return compiler.compile(expression).apply(input);
+    }
+
+    private static String read(String resource) throws Exception {
+        return new ClassPathResource(resource).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
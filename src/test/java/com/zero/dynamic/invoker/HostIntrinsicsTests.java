@@ -0,0 +1,80 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 宿主内置函数: 解码结果正确, 脚本只能访问导出的方法
+ */
+class HostIntrinsicsTests {
+    private static final String SCRIPT = """
+            function decode(content) {
+                return intrinsics.extractFirst(intrinsics.stripTags(intrinsics.decodeQuotedPrintable(content)), "(\\\\d{6})");
+            }
+            function escape(content) {
+                return String(intrinsics.getClass());
+            }
+            function codes(content) {
+                return intrinsics.extractAll(content, "(\\\\d{3})", 1).join(",");
+            }
+            """;
+
+    private final HostIntrinsics intrinsics = HostIntrinsics.INSTANCE;
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("intrinsics", SCRIPT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void decodesMimeAndHtml() {
+        assertThat(intrinsics.decodeHtml("&lt;b&gt;&#49;&#x32;3&amp;&unknown;")).isEqualTo("<b>123&&unknown;");
+        assertThat(intrinsics.decodeQuotedPrintable("=E9=AA=8C=E8=AF=81=\r\n=E7=A0=81")).isEqualTo("验证码");
+        assertThat(intrinsics.decodeBase64("6aqM6K+B\r\n56CB")).isEqualTo("验证码");
+        assertThat(intrinsics.decodeMimeHeader("=?UTF-8?B?6aqM6K+B?= =?UTF-8?Q?=E7=A0=81?= ok")).isEqualTo("验证码 ok");
+        assertThat(intrinsics.extract("CODE: 123456", "code: (\\d+)", 1, "i")).isEqualTo("123456");
+        assertThat(intrinsics.sha256("abc")).isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void scriptsCallOnlyExportedMethods() throws Exception {
+        assertThat(jsInvoker.callPooled("intrinsics", "decode", "<b>=31=32=33456</b>")).isEqualTo("123456");
+        assertThat(jsInvoker.callPooled("intrinsics", "codes", "111 222 333")).isEqualTo("111,222,333");
+        assertThatThrownBy(() -> jsInvoker.callPooled("intrinsics", "escape", ""))
+                .isInstanceOf(PolyglotException.class);
+        assertThatThrownBy(() -> jsInvoker.eval("Java.type('java.lang.System')"))
+                .isInstanceOf(PolyglotException.class);
+    }
+
+    @Test
+    void boundsScriptRegexes() {
+        // 标志不同的同一正则各自缓存, 不与形如 /regex/flags 的正则混淆
+        assertThat(intrinsics.test("ABC", "abc", "i")).isTrue();
+        assertThat(intrinsics.test("ABC", "abc", "")).isFalse();
+        assertThat(intrinsics.test("/abc/i", "/abc/i", "")).isTrue();
+        assertThat(intrinsics.test("ABC", "/abc/i", "")).isFalse();
+
+        // 回溯失控的正则在截止时间后终止
+        String input = "a".repeat(40) + "!";
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> intrinsics.test(input, "(.*a){12}b"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out");
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+    }
+}
@@ -0,0 +1,81 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 正则集合与等价 JS 脚本的结果一致性
+ */
+class PatternSetInvokerTests {
+    private static final List<String> CONTENTS = List.of(
+            "请在电子邮件验证页面输入下方验证码：\r\n\r\n <b>482913</b> \r\n\r\n此电子邮件发出 3 小时后，验证码将过期。",
+            "Enter the code on the verification page: your code is 739201, it expires soon.",
+            "<div><b><p>105938</p></b></div>",
+            "<td>  <b>662014</b></td>",
+            "Your code:\n918273\r\nThanks",
+            "code 12345 is too short, 1234567 is too long",
+            "",
+            "验证码 <b>12ab56</b> 无效"
+    );
+
+    private static JavaScriptInvoker jsInvoker;
+    private static PatternSetInvoker patternSetInvoker;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("verify-code", read("scripts/verify-code.js"));
+        patternSetInvoker = new PatternSetInvoker();
+        patternSetInvoker.register("verify-code", read("scripts/verify-code.patterns"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void matchesJavaScriptVersion() throws Exception {
+        for (String content : CONTENTS) {
+            assertThat(patternSetInvoker.call("verify-code", content))
+                    .as(content)
+                    .isEqualTo(jsInvoker.callPooled("verify-code", "decode", content));
+        }
+    }
+
+    @Test
+    void firstPatternWins() {
+        patternSetInvoker.register("order", "(\\d{4})\n(\\d{6})");
+        assertThat(patternSetInvoker.call("order", "123456")).isEqualTo("1234");
+        assertThat(patternSetInvoker.call("order", "abc")).isNull();
+        assertThat(patternSetInvoker.call("missing", "123456")).isNull();
+    }
+
+    @Test
+    void whitespaceMatchesLikeJavaScript() throws Exception {
+        String patterns = "/code:\\s(\\d{6})/\n/id:[^\\s]*?(\\d{4})\\S/\n/text:([\\s\\S]{2})/";
+        jsInvoker.register("spaces", "var patterns = [" + patterns.replace('\n', ',') + "];"
+                + "function decode(content) { for (var i = 0; i < patterns.length; i++) {"
+                + " var match = content.match(patterns[i]); if (match) return match[1]; } return null; }");
+        patternSetInvoker.register("spaces", patterns);
+        for (String content : List.of("code:\u00a0123456", "code:\u3000654321", "code:\ufeff111111", "code:\u0085222222",
+                "id:\u00a01234x", "id:ab1234\u3000", "text:\u2028\u00a0")) {
+            assertThat(patternSetInvoker.call("spaces", content))
+                    .as(content)
+                    .isEqualTo(jsInvoker.callPooled("spaces", "decode", content));
+        }
+        assertThat(patternSetInvoker.call("spaces", "code:\u00a0123456")).isEqualTo("123456");
+    }
+
+    private static String read(String resource) throws Exception {
+        return new ClassPathResource(resource).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
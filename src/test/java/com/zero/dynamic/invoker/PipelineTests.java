@@ -0,0 +1,66 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import com.zero.dynamic.pool.impl.InvokerPipelineWorker.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 流水线: 各阶段依次执行, 阶段校验, 注销阶段脚本时移除流水线
+ */
+class PipelineTests {
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("trim", "function apply(content) { return content.trim(); }");
+        jsInvoker.register("upper", "function apply(content) { return content.toUpperCase(); }");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void executesStagesInOrder() throws Exception {
+        jsInvoker.registerPipeline("normalize", List.of(new Stage("trim", "apply"), new Stage("upper", "apply")));
+
+        JavaScriptInvoker.PipelineResult result = jsInvoker.callPipeline("normalize", "  abc  ", true);
+        assertThat(result.value()).isEqualTo("ABC");
+        assertThat(result.stages()).extracting(JavaScriptInvoker.StageTiming::id).containsExactly("trim", "upper");
+        assertThat(jsInvoker.callPipeline("normalize", " x ", false))
+                .isEqualTo(new JavaScriptInvoker.PipelineResult("X", null));
+        assertThat(jsInvoker.callPipeline("missing", "x", false)).isNull();
+    }
+
+    @Test
+    void rejectsInvalidStages() {
+        assertThatThrownBy(() -> jsInvoker.registerPipeline("empty", List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jsInvoker.registerPipeline("unknown", List.of(new Stage("missing", "apply"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("missing");
+        assertThatThrownBy(() -> jsInvoker.registerPipeline("invalid", List.of(new Stage("trim", "apply()"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unregisterRemovesPipelinesUsingScript() throws Exception {
+        jsInvoker.registerPipeline("normalize", List.of(new Stage("trim", "apply"), new Stage("upper", "apply")));
+        jsInvoker.registerPipeline("strip", List.of(new Stage("trim", "apply")));
+        assertThat(jsInvoker.callPipeline("normalize", " a ", false).value()).isEqualTo("A");
+
+        jsInvoker.unregister("upper");
+        assertThat(jsInvoker.callPipeline("normalize", " a ", false)).isNull();
+        // 未引用该脚本的流水线不受影响
+        assertThat(jsInvoker.callPipeline("strip", " a ", false).value()).isEqualTo("a");
+    }
+}
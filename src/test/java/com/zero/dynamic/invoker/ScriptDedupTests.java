@@ -0,0 +1,72 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 脚本去重: 内容相同的脚本ID共享对象池, 最后一个引用注销后释放
+ */
+class ScriptDedupTests {
+    private static final String SCRIPT = """
+            function decode(content) {
+                return content.toUpperCase();
+            }
+            """;
+
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void identicalScriptsSharePools() throws Exception {
+        jsInvoker.register("tenant-a", SCRIPT);
+        jsInvoker.register("tenant-b", SCRIPT);
+        assertThat(jsInvoker.scriptStats()).isEqualTo(new JavaScriptInvoker.ScriptStats(2, 1));
+        // 共享的 Source 以内容摘要命名, 与注册顺序无关
+        assertThat(jsInvoker.sourceName("tenant-b")).isEqualTo(jsInvoker.sourceName("tenant-a")).matches("\\p{XDigit}{16}");
+
+        assertThat(jsInvoker.callPooled("tenant-a", "decode", "abc")).isEqualTo("ABC");
+        assertThat(jsInvoker.callPooled("tenant-b", "decode", "def")).isEqualTo("DEF");
+        assertThat(jsInvoker.stats().pools()).isEqualTo(1);
+
+        // 仍有引用时保留对象池, 名称不指向已注销的脚本ID
+        String name = jsInvoker.sourceName("tenant-a");
+        jsInvoker.unregister("tenant-a");
+        assertThat(jsInvoker.stats().pools()).isEqualTo(1);
+        assertThat(jsInvoker.sourceName("tenant-b")).isEqualTo(name);
+        assertThat(jsInvoker.callPooled("tenant-b", "decode", "ghi")).isEqualTo("GHI");
+
+        jsInvoker.unregister("tenant-b");
+        assertThat(jsInvoker.scriptStats()).isEqualTo(new JavaScriptInvoker.ScriptStats(0, 0));
+        assertThat(jsInvoker.stats().pools()).isZero();
+    }
+
+    @Test
+    void changedScriptReleasesSharedPool() throws Exception {
+        jsInvoker.register("tenant-a", SCRIPT);
+        jsInvoker.register("tenant-b", SCRIPT);
+        jsInvoker.callPooled("tenant-a", "decode", "abc");
+
+        jsInvoker.register("tenant-b", SCRIPT.replace("toUpperCase", "toLowerCase"));
+        assertThat(jsInvoker.scriptStats()).isEqualTo(new JavaScriptInvoker.ScriptStats(2, 2));
+        assertThat(jsInvoker.callPooled("tenant-a", "decode", "Abc")).isEqualTo("ABC");
+        assertThat(jsInvoker.callPooled("tenant-b", "decode", "Abc")).isEqualTo("abc");
+        assertThat(jsInvoker.stats().pools()).isEqualTo(2);
+
+        // 重新注册相同内容时保留现有对象池
+        jsInvoker.register("tenant-a", SCRIPT);
+        assertThat(jsInvoker.stats().pools()).isEqualTo(2);
+    }
+}
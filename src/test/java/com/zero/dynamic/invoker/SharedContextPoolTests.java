@@ -0,0 +1,93 @@
+package com.zero.dynamic.invoker;
+
+import com.zero.dynamic.pool.SharedContextPool;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import com.zero.dynamic.pool.impl.InvokerPipelineWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 共享上下文池: 上下文数量与脚本数量无关, 同名全局函数互不覆盖, 重新注册后加载新版本, 注销后移除函数句柄, 拒绝注入代码的函数名
+ */
+class SharedContextPoolTests {
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.enableSharedContexts(2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void manyScriptsShareFewContexts() throws Exception {
+        int scripts = 10;
+        for (int i = 0; i < scripts; i++) {
+            jsInvoker.register("s" + i, "var prefix = 's" + i + ":'; function decode(content) { return prefix + content; }");
+        }
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < scripts; i++) {
+                    String id = "s" + i;
+                    futures.add(executor.submit(() -> jsInvoker.callPooled(id, "decode", "x")));
+                }
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get()).isEqualTo("s" + (i % scripts) + ":x");
+        }
+        SharedContextPool.Stats stats = jsInvoker.getSharedPool().stats();
+        assertThat(stats.contexts()).isEqualTo(2);
+        assertThat(stats.loadedFunctions()).isLessThanOrEqualTo(2 * 4);
+        assertThat(stats.evictions()).isPositive();
+        assertThat(jsInvoker.stats().contexts()).isZero();
+    }
+
+    @Test
+    void reRegisterLoadsNewVersion() throws Exception {
+        jsInvoker.register("v", "function decode(content) { return 'v1'; }");
+        assertThat(jsInvoker.callPooled("v", "decode", "")).isEqualTo("v1");
+        jsInvoker.register("v", "function decode(content) { return 'v2'; }");
+        assertThat(jsInvoker.callPooled("v", "decode", "")).isEqualTo("v2");
+        // 内容变化后是新的函数, 再次调用时命中已加载的上下文
+        assertThat(jsInvoker.callPooled("v", "decode", "")).isEqualTo("v2");
+        assertThat(jsInvoker.getSharedPool().stats().warmCheckouts()).isPositive();
+    }
+
+    @Test
+    void unregisterEvictsHandles() throws Exception {
+        jsInvoker.register("a", "function decode(content) { return 'a'; }");
+        jsInvoker.register("b", "function decode(content) { return 'b'; }");
+        jsInvoker.callPooled("a", "decode", "");
+        jsInvoker.callPooled("b", "decode", "");
+        assertThat(jsInvoker.getSharedPool().stats().loadedFunctions()).isEqualTo(2);
+        jsInvoker.unregister("a");
+        assertThat(jsInvoker.getSharedPool().stats().loadedFunctions()).isEqualTo(1);
+        assertThat(jsInvoker.callPooled("b", "decode", "")).isEqualTo("b");
+    }
+
+    @Test
+    void rejectsInjectedFunctionNames() throws Exception {
+        jsInvoker.register("v", "function decode(content) { return content; }");
+        assertThatThrownBy(() -> jsInvoker.callPooled("v", "decode; globalThis.leak = 1; decode", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jsInvoker.registerPipeline("p", List.of(new InvokerPipelineWorker.Stage("v", "decode)(x"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(jsInvoker.callPooled("v", "decode", "x")).isEqualTo("x");
+    }
+}
@@ -0,0 +1,75 @@
+package com.zero.dynamic.jfr;
+
+import com.zero.dynamic.invoker.JavaDynamicCompiler;
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 按项目的 JFR 配置记录, 脚本调用、对象池、上下文与动态编译事件均被记录
+ */
+class ScriptEventsTests {
+
+    @Test
+    void eventsAreRecorded(@TempDir Path dir) throws Exception {
+        Map<String, String> settings;
+        try (Reader reader = new InputStreamReader(new ClassPathResource("jfr/dynamic-script.jfc").getInputStream(), StandardCharsets.UTF_8)) {
+            settings = new HashMap<>(Configuration.create(reader).getSettings());
+        }
+        // 记录全部调用, 不受阈值影响
+        settings.put("com.zero.dynamic.ScriptExecute#threshold", "0 ms");
+        settings.put("com.zero.dynamic.PoolCheckout#threshold", "0 ms");
+        Path file = dir.resolve("script.jfr");
+        boolean compiled;
+        try (Recording recording = new Recording(settings)) {
+            recording.start();
+            JavaScriptInvoker jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+            jsInvoker.register("echo", "function decode(content) { return content; } function fail(content) { throw new Error(content); }");
+            jsInvoker.callPooled("echo", "decode", "hello");
+            assertThatThrownBy(() -> jsInvoker.call("echo", "fail", "boom")).isInstanceOf(RuntimeException.class);
+            jsInvoker.destroy();
+            compiled = new JavaDynamicCompiler().compile("JfrProbe", "public class JfrProbe {}", true).success();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Map<String, List<RecordedEvent>> byName = events.stream()
+                .filter(event -> event.getEventType().getName().startsWith("com.zero.dynamic."))
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+        assertThat(byName).containsKeys("com.zero.dynamic.ScriptExecute", "com.zero.dynamic.PoolCheckout",
+                "com.zero.dynamic.ContextCreate", "com.zero.dynamic.ContextClose", "com.zero.dynamic.JavaCompile");
+        RecordedEvent execute = byName.get("com.zero.dynamic.ScriptExecute").getFirst();
+        assertThat(execute.getString("scriptId")).isEqualTo("echo");
+        assertThat(execute.getLong("inputSize")).isEqualTo(5);
+        assertThat(execute.getBoolean("success")).isTrue();
+        // 执行失败的调用同样被记录
+        assertThat(byName.get("com.zero.dynamic.ScriptExecute"))
+                .anySatisfy(failed -> {
+                    assertThat(failed.getString("function")).isEqualTo("fail");
+                    assertThat(failed.getBoolean("success")).isFalse();
+                });
+        assertThat(byName.get("com.zero.dynamic.PoolCheckout").getFirst().getString("pool")).matches("js:\\p{XDigit}{16}#decode");
+        RecordedEvent compile = byName.get("com.zero.dynamic.JavaCompile").getFirst();
+        assertThat(compile.getBoolean("success")).isEqualTo(compiled);
+        if (compiled) assertThat(compile.getLong("bytecodeSize")).isPositive();
+        assertThat(compile.getBoolean("cacheHit")).isFalse();
+    }
+}
@@ -0,0 +1,163 @@
+package com.zero.dynamic.job;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 离线批处理: 分片对齐到记录边界, 结果按输入顺序写出
+ */
+class BulkJobServiceTests {
+    private static final String SCRIPT = """
+            function decode(content) {
+                if (content === 'boom') throw new Error('boom');
+                const match = content.match(/<b>(\\d{6})<\\/b>/);
+                return match ? match[1] : null;
+            }
+            function slow(content) {
+                const end = Date.now() + 5;
+                while (Date.now() < end) {}
+                return content;
+            }
+            """;
+
+    @TempDir
+    Path dir;
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("verify-code", SCRIPT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void chunksAreRecordAligned() throws Exception {
+        Path file = dir.resolve("records.txt");
+        Files.writeString(file, IntStream.range(0, 1000).mapToObj(i -> "record-" + i).collect(Collectors.joining("\n")));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = BulkJobService.split(channel, 100);
+            assertThat(chunks.getFirst()[0]).isZero();
+            assertThat(chunks.getLast()[1]).isEqualTo(channel.size());
+            for (int i = 1; i < chunks.size(); i++) {
+                assertThat(chunks.get(i)[0]).isEqualTo(chunks.get(i - 1)[1]);
+                // 每个分片都从一条记录的开头开始
+                assertThat(Files.readAllBytes(file)[(int) chunks.get(i)[0] - 1]).isEqualTo((byte) '\n');
+            }
+        }
+    }
+
+    @Test
+    void resultsFollowInputOrder() throws Exception {
+        int records = 20000;
+        List<String> lines = IntStream.range(0, records)
+                .mapToObj(i -> i == 7 ? "boom" : i % 10 == 3 ? "no code" : "邮件".repeat(40) + " <b>" + (100000 + i) + "</b>\r")
+                .toList();
+        Files.write(dir.resolve("emails.txt"), lines);
+        BulkJobService service = new BulkJobService(jsInvoker, dir.toString(), 1, 4, 4, 100);
+
+        BulkJob job = service.submit("verify-code", "decode", "emails.txt", "codes.txt", 4);
+        await(job);
+
+        BulkJob.Progress progress = job.progress();
+        assertThat(progress.state()).isEqualTo(BulkJob.State.COMPLETED);
+        assertThat(progress.chunks()).isGreaterThan(1);
+        assertThat(progress.records()).isEqualTo(records);
+        assertThat(progress.errors()).isEqualTo(1);
+        assertThat(progress.processedBytes()).isEqualTo(progress.totalBytes());
+        List<String> results = Files.readAllLines(dir.resolve("codes.txt"));
+        assertThat(results).hasSize(records);
+        for (int i = 0; i < records; i++) {
+            String expected = i == 7 || i % 10 == 3 ? "" : String.valueOf(100000 + i);
+            assertThat(results.get(i)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void boundsRunningAndRetainedJobs() throws Exception {
+        int records = 1000;
+        Files.write(dir.resolve("slow.txt"), IntStream.range(0, records).mapToObj(i -> "record-" + i).toList());
+        Files.write(dir.resolve("fast.txt"), List.of("a", "b"));
+        BulkJobService service = new BulkJobService(jsInvoker, dir.toString(), 1, 1, 1, 1);
+
+        BulkJob slow = service.submit("verify-code", "slow", "slow.txt", "slow-out.txt", 1);
+        assertThatThrownBy(() -> service.submit("verify-code", "slow", "fast.txt", "fast-out.txt", 1))
+                .isInstanceOf(IllegalStateException.class);
+        service.cancel(slow.getJobId());
+        await(slow);
+        assertThat(slow.getState()).isEqualTo(BulkJob.State.CANCELLED);
+        // 取消的分片不写出, 输出不包含部分分片
+        assertThat(Files.readAllLines(dir.resolve("slow-out.txt"))).isEmpty();
+
+        // 任务结束后释放名额, 超出保留上限时移除最早结束的任务
+        BulkJob fast = awaitSubmit(service, "fast.txt", "fast-out.txt");
+        await(fast);
+        assertThat(fast.getState()).isEqualTo(BulkJob.State.COMPLETED);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (service.list().size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.list()).containsExactly(fast);
+        assertThatThrownBy(() -> service.get(slow.getJobId())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() throws Exception {
+        assertThatThrownBy(() -> new BulkJobService(jsInvoker, dir.toString(), 0, 4, 4, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        Path file = dir.resolve("records.txt");
+        Files.writeString(file, "a\nb\n");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThatThrownBy(() -> BulkJobService.split(channel, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsPathsOutsideJobDirectory() {
+        BulkJobService service = new BulkJobService(jsInvoker, dir.toString(), 1, 4, 4, 100);
+        assertThatThrownBy(() -> service.submit("verify-code", "decode", "../etc/passwd", "out.txt", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(BulkJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (job.getState() == BulkJob.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * 上一个任务的名额在任务状态更新之后释放, 提交被拒绝时重试
+     */
+    private static BulkJob awaitSubmit(BulkJobService service, String input, String output) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                return service.submit("verify-code", "slow", input, output, 1);
+            } catch (IllegalStateException e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(10);
+            }
+        }
+    }
+}
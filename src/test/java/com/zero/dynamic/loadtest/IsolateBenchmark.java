@@ -0,0 +1,93 @@
+package com.zero.dynamic.loadtest;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.ScriptOptions;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 对比应用堆模式与 polyglot isolate 模式: 吞吐量、延迟, 以及应用 JVM 的 GC 次数和耗时.
+ * <pre>
+ * mvn -Ploadtest,isolate test-compile exec:java -Dloadtest.main=com.zero.dynamic.loadtest.IsolateBenchmark
+ * </pre>
+ * 可选参数 (系统属性): loadtest.clients (默认 8), loadtest.duration (默认 30 秒), isolate.memory (默认 256MB)
+ *
+ * @author Zero.
+ */
+public class IsolateBenchmark {
+    /// 较大的邮件正文, 让脚本产生足够的字符串、正则结果等垃圾
+    private static final String CONTENT = "你已选择此电子邮件地址作为你的 Apple 账户。".repeat(200) + "\r\n <b>%d</b> \r\n";
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("loadtest.clients", 8);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        String memory = System.getProperty("isolate.memory", "256MB");
+        String script = new ClassPathResource("scripts/verify-code.js").getContentAsString(StandardCharsets.UTF_8);
+
+        JavaScriptInvoker invoker = new JavaScriptInvoker(new WorkerPoolRegistry(0, 0, 0));
+        try {
+            invoker.register("heap", script);
+            invoker.register("isolate", script, new ScriptOptions(true, memory));
+            for (String id : new String[]{"heap", "isolate"}) {
+                // 预热
+                run(invoker, id, clients, Duration.ofSeconds(5));
+                System.gc();
+                long[] gcBefore = gc();
+                Histogram histogram = new ConcurrentHistogram(3);
+                long elapsed = run(invoker, id, clients, duration, histogram);
+                long[] gcAfter = gc();
+                System.out.printf("[%s] throughput=%.1f calls/s p50=%.1fus p99=%.1fus p999=%.1fus host gc: count=%d time=%dms%n",
+                        id, histogram.getTotalCount() / (elapsed / 1e9),
+                        histogram.getValueAtPercentile(50) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0,
+                        histogram.getValueAtPercentile(99.9) / 1000.0,
+                        gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+            }
+        } finally {
+            invoker.destroy();
+        }
+    }
+
+    private static long run(JavaScriptInvoker invoker, String id, int clients, Duration window) {
+        return run(invoker, id, clients, window, new ConcurrentHistogram(3));
+    }
+
+    private static long run(JavaScriptInvoker invoker, String id, int clients, Duration window, Histogram histogram) {
+        long start = System.nanoTime();
+        long deadline = start + window.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String content = CONTENT.formatted(ThreadLocalRandom.current().nextInt(100000, 999999));
+                        long begin = System.nanoTime();
+                        invoker.callPooled(id, "decode", content);
+                        histogram.recordValue(System.nanoTime() - begin);
+                    }
+                    return null;
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /// 应用 JVM 的 GC 总次数与总耗时 (ms)
+    private static long[] gc() {
+        long count = 0, time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+}
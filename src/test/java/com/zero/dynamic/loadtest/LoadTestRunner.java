@@ -0,0 +1,231 @@
+package com.zero.dynamic.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zero.dynamic.DynamicScriptApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行接口端到端压测工具.
+ * <p>
+ * 以随机端口启动应用, 注册示例验证码脚本, 使用虚拟线程 + {@link HttpClient} 模拟并发客户端,
+ * 统计吞吐量与 p50/p99/p999 延迟 (HdrHistogram), 结果写为 JSON, 并与基线对比.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.clients=64 -Dloadtest.duration=30
+ * </pre>
+ * 可选参数 (系统属性):
+ * <ul>
+ *     <li>loadtest.targets   压测目标, 逗号分隔: js,python (默认 js)</li>
+ *     <li>loadtest.clients   并发客户端数 (默认 64)</li>
+ *     <li>loadtest.warmup    预热秒数, 不计入统计 (默认 5)</li>
+ *     <li>loadtest.duration  压测秒数 (默认 30)</li>
+ *     <li>loadtest.baseline  基线目录 (默认 loadtest), 文件名 baseline-{target}.json</li>
+ *     <li>loadtest.saveBaseline 是否用本次结果覆盖基线 (默认 false)</li>
+ * </ul>
+ *
+ * @author Zero.
+ */
+public class LoadTestRunner {
+    private static final String SCRIPT_ID = "verify-code";
+    private static final String CONTENT = """
+            你已选择此电子邮件地址作为你的 Apple 账户。为验证此电子邮件地址属于你，请在电子邮件验证页面输入下方验证码：\r
+            \r
+             <b>%d</b> \r
+            \r
+            此电子邮件发出 3 小时后，验证码将过期。\r
+            \r
+            Apple 账户\r
+            https://account.apple.com\r
+            """;
+
+    /// 压测目标: 脚本注册/执行接口
+    record Target(String name, String registerPath, String executePath, String scriptResource) {
+        static Target of(String name) {
+            return switch (name) {
+                case "js" -> new Target("js", "/script/js/register", "/script/js/execute", "scripts/verify-code.js");
+                case "python" -> new Target("python", "/python/register", "/python/execute", "scripts/verify-code.py");
+                default -> throw new IllegalArgumentException("unknown load test target: " + name);
+            };
+        }
+    }
+
+    /// 单次压测结果, 以 JSON 形式保存为基线
+    record Result(String target, int clients, long durationSeconds, long requests, long errors,
+                  double throughput, double p50Micros, double p99Micros, double p999Micros, double maxMicros,
+                  String histogram, String timestamp) {
+    }
+
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final String baseUrl;
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+
+    LoadTestRunner(String baseUrl, int clients, Duration warmup, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> targets = List.of(System.getProperty("loadtest.targets", "js").split(","));
+        int clients = Integer.getInteger("loadtest.clients", 64);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        Path baselineDir = Path.of(System.getProperty("loadtest.baseline", "loadtest"));
+        boolean saveBaseline = Boolean.getBoolean("loadtest.saveBaseline");
+
+        try (ConfigurableApplicationContext app = SpringApplication.run(DynamicScriptApplication.class, "--server.port=0")) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            LoadTestRunner runner = new LoadTestRunner("http://localhost:" + port, clients, warmup, duration);
+            for (String name : targets) {
+                Target target = Target.of(name.trim());
+                Result result = runner.run(target);
+                runner.report(result, baselineDir.resolve("baseline-" + target.name() + ".json"), saveBaseline);
+            }
+        }
+    }
+
+    /**
+     * 注册脚本、预热, 然后在固定时长内压测执行接口.
+     */
+    Result run(Target target) throws Exception {
+        String script = new ClassPathResource(target.scriptResource()).getContentAsString(StandardCharsets.UTF_8);
+        HttpRequest register = HttpRequest.newBuilder(URI.create(baseUrl + target.registerPath() + "?id=" + SCRIPT_ID))
+                .POST(HttpRequest.BodyPublishers.ofString(script))
+                .build();
+        HttpResponse<String> registered = client.send(register, HttpResponse.BodyHandlers.ofString());
+        if (registered.statusCode() != 200) {
+            throw new IllegalStateException("register script failed: " + registered.statusCode() + " " + registered.body());
+        }
+
+        System.out.printf("[%s] warmup %ds with %d clients%n", target.name(), warmup.toSeconds(), clients);
+        drive(target, warmup, new ConcurrentHistogram(3), new AtomicLong());
+
+        System.out.printf("[%s] measure %ds with %d clients%n", target.name(), duration.toSeconds(), clients);
+        Histogram histogram = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        long elapsed = drive(target, duration, histogram, errors);
+
+        double seconds = elapsed / 1e9;
+        return new Result(target.name(), clients, duration.toSeconds(), histogram.getTotalCount(), errors.get(),
+                histogram.getTotalCount() / seconds,
+                micros(histogram.getValueAtPercentile(50)),
+                micros(histogram.getValueAtPercentile(99)),
+                micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getMaxValue()),
+                encode(histogram),
+                Instant.now().toString());
+    }
+
+    /**
+     * 启动 {@code clients} 个虚拟线程客户端, 持续发送请求直到截止时间.
+     *
+     * @return 实际耗时 (ns)
+     */
+    private long drive(Target target, Duration window, Histogram histogram, AtomicLong errors) {
+        long start = System.nanoTime();
+        long deadline = start + window.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int code = ThreadLocalRandom.current().nextInt(100000, 999999);
+                        String content = URLEncoder.encode(CONTENT.formatted(code), StandardCharsets.UTF_8);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                                        baseUrl + target.executePath() + "?id=" + SCRIPT_ID + "&content=" + content))
+                                .GET()
+                                .build();
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            histogram.recordValue(System.nanoTime() - begin);
+                            if (response.statusCode() != 200 || !response.body().contains(String.valueOf(code))) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 输出本次结果, 并与基线对比.
+     */
+    void report(Result result, Path baseline, boolean saveBaseline) throws IOException {
+        System.out.printf("[%s] requests=%d errors=%d throughput=%.1f req/s p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                result.target(), result.requests(), result.errors(), result.throughput(),
+                result.p50Micros(), result.p99Micros(), result.p999Micros(), result.maxMicros());
+
+        Path output = Path.of("target", "loadtest", "result-" + result.target() + ".json");
+        Files.createDirectories(output.getParent());
+        mapper.writeValue(output.toFile(), result);
+        System.out.printf("[%s] result saved: %s%n", result.target(), output.toAbsolutePath());
+
+        if (Files.exists(baseline)) {
+            Result base = mapper.readValue(baseline.toFile(), Result.class);
+            System.out.printf("[%s] compare with baseline %s (%s)%n", result.target(), baseline, base.timestamp());
+            System.out.printf("  throughput %10.1f -> %10.1f req/s (%+.1f%%)%n", base.throughput(), result.throughput(), delta(base.throughput(), result.throughput()));
+            System.out.printf("  p50        %10.1f -> %10.1f us    (%+.1f%%)%n", base.p50Micros(), result.p50Micros(), delta(base.p50Micros(), result.p50Micros()));
+            System.out.printf("  p99        %10.1f -> %10.1f us    (%+.1f%%)%n", base.p99Micros(), result.p99Micros(), delta(base.p99Micros(), result.p99Micros()));
+            System.out.printf("  p999       %10.1f -> %10.1f us    (%+.1f%%)%n", base.p999Micros(), result.p999Micros(), delta(base.p999Micros(), result.p999Micros()));
+        }
+        if (saveBaseline || Files.notExists(baseline)) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            mapper.writeValue(baseline.toFile(), result);
+            System.out.printf("[%s] baseline saved: %s%n", result.target(), baseline.toAbsolutePath());
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static double delta(double base, double current) {
+        return base == 0 ? 0 : (current - base) * 100 / base;
+    }
+
+    /// 将直方图压缩编码为 Base64, 便于后续用 {@link Histogram#decodeFromCompressedByteBuffer} 还原
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+}
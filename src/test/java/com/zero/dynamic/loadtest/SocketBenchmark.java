@@ -0,0 +1,118 @@
+package com.zero.dynamic.loadtest;
+
+import com.zero.dynamic.DynamicScriptApplication;
+import com.zero.dynamic.invoker.ExpressionInvoker;
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.invoker.PythonScriptInvoker;
+import com.zero.dynamic.transport.Frames;
+import com.zero.dynamic.transport.ScriptSocketClient;
+import com.zero.dynamic.transport.ScriptSocketServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比 HTTP 执行接口与二进制 socket 接入 (TCP / Unix domain socket) 的吞吐量和延迟.
+ * 脚本本身只需几微秒, 差异主要来自接入层的开销.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.main=com.zero.dynamic.loadtest.SocketBenchmark
+ * </pre>
+ * 可选参数 (系统属性): loadtest.clients (默认 64), loadtest.warmup (默认 5 秒), loadtest.duration (默认 30 秒)
+ *
+ * @author Zero.
+ */
+public class SocketBenchmark {
+    private static final String SCRIPT_ID = "verify-code";
+    private static final String CONTENT = "\r\n <b>%d</b> \r\n";
+
+    /// 单次调用, 返回值需包含验证码
+    interface Caller {
+        String call(String content) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("loadtest.clients", 64);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        String script = new ClassPathResource("scripts/verify-code.js").getContentAsString(StandardCharsets.UTF_8);
+        Path unix = Files.createTempDirectory("dynamic-script").resolve("script.sock");
+
+        try (ConfigurableApplicationContext app = SpringApplication.run(DynamicScriptApplication.class, "--server.port=0", "--script.socket.address=localhost:0")) {
+            app.getBean(JavaScriptInvoker.class).register(SCRIPT_ID, script);
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            // 额外监听 Unix domain socket
+            ScriptSocketServer unixListener = new ScriptSocketServer(app.getBean(JavaScriptInvoker.class),
+                    app.getBean(PythonScriptInvoker.class), app.getBean(ExpressionInvoker.class), "unix:" + unix, 1, 256);
+            unixListener.start();
+
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            String base = "http://localhost:" + port + "/script/js/execute?id=" + SCRIPT_ID + "&content=";
+            try (ScriptSocketClient tcp = ScriptSocketClient.connect(app.getBean(ScriptSocketServer.class).getLocalAddress());
+                 ScriptSocketClient uds = ScriptSocketClient.connect("unix:" + unix)) {
+                bench("http", clients, warmup, duration, content -> http.send(
+                        HttpRequest.newBuilder(URI.create(base + URLEncoder.encode(content, StandardCharsets.UTF_8))).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()).body());
+                bench("tcp", clients, warmup, duration, content -> tcp.call(Frames.LANG_JS, SCRIPT_ID, "decode", content));
+                bench("unix", clients, warmup, duration, content -> uds.call(Frames.LANG_JS, SCRIPT_ID, "decode", content));
+            } finally {
+                unixListener.stop();
+            }
+        }
+    }
+
+    private static void bench(String name, int clients, Duration warmup, Duration duration, Caller caller) {
+        drive(caller, clients, warmup, new ConcurrentHistogram(3), new AtomicLong());
+        Histogram histogram = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        long elapsed = drive(caller, clients, duration, histogram, errors);
+        System.out.printf("[%-4s] requests=%d errors=%d throughput=%.1f req/s p50=%.1fus p99=%.1fus p999=%.1fus%n",
+                name, histogram.getTotalCount(), errors.get(), histogram.getTotalCount() / (elapsed / 1e9),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0);
+    }
+
+    private static long drive(Caller caller, int clients, Duration window, Histogram histogram, AtomicLong errors) {
+        long start = System.nanoTime();
+        long deadline = start + window.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int code = ThreadLocalRandom.current().nextInt(100000, 999999);
+                        long begin = System.nanoTime();
+                        try {
+                            String ret = caller.call(CONTENT.formatted(code));
+                            histogram.recordValue(System.nanoTime() - begin);
+                            if (ret == null || !ret.contains(String.valueOf(code))) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,146 @@
+package com.zero.dynamic.loadtest;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 启动耗时对比: 分别在有/无 AOT 缓存 (JEP 483) 的情况下启动应用,
+ * 统计从进程启动到第一次脚本执行成功 (time-to-first-successful-execute) 的耗时.
+ * <pre>
+ * mvn -Paot-cache verify
+ * </pre>
+ * 可选参数 (系统属性):
+ * <ul>
+ *     <li>startup.jar    解压后的应用 jar (默认 target/aot/springboot-dynamic.jar)</li>
+ *     <li>startup.cache  AOT 缓存文件 (默认 target/aot/app.aot)</li>
+ *     <li>startup.runs   每种模式的启动次数 (默认 5)</li>
+ * </ul>
+ *
+ * @author Zero.
+ */
+public class StartupBenchmark {
+    private static final String SCRIPT_ID = "verify-code";
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final String script;
+
+    StartupBenchmark() throws IOException {
+        this.script = new ClassPathResource("scripts/verify-code.js").getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar", "target/aot/springboot-dynamic.jar"));
+        Path cache = Path.of(System.getProperty("startup.cache", "target/aot/app.aot"));
+        int runs = Integer.getInteger("startup.runs", 5);
+        if (Files.notExists(jar) || Files.notExists(cache)) {
+            throw new IllegalStateException("run `mvn -Paot-cache package` first, missing: " + (Files.notExists(jar) ? jar : cache));
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark();
+        long[] without = benchmark.measure(jar, null, runs);
+        long[] with = benchmark.measure(jar, cache, runs);
+        System.out.printf("time-to-first-execute without AOT cache: median=%dms min=%dms %s%n", median(without), without[0], Arrays.toString(without));
+        System.out.printf("time-to-first-execute with    AOT cache: median=%dms min=%dms %s%n", median(with), with[0], Arrays.toString(with));
+        System.out.printf("speedup: %.2fx%n", (double) median(without) / median(with));
+    }
+
+    /**
+     * 多次启动应用, 返回排序后的耗时 (ms).
+     */
+    long[] measure(Path jar, Path cache, int runs) throws Exception {
+        long[] costs = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            costs[i] = this.launch(jar, cache);
+            System.out.printf("[%s] run %d: %dms%n", cache == null ? "default" : "aot-cache", i + 1, costs[i]);
+        }
+        Arrays.sort(costs);
+        return costs;
+    }
+
+    /**
+     * 启动一次应用, 轮询注册、执行接口直到执行成功.
+     *
+     * @return 从进程启动到第一次执行成功的耗时 (ms)
+     */
+    private long launch(Path jar, Path cache) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (cache != null) command.add("-XX:AOTCache=" + cache);
+        command.add("-Dspring.aot.enabled=true");
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+
+        String base = "http://localhost:" + port;
+        int code = 123456;
+        HttpRequest register = HttpRequest.newBuilder(URI.create(base + "/script/js/register?id=" + SCRIPT_ID))
+                .POST(HttpRequest.BodyPublishers.ofString(script))
+                .build();
+        HttpRequest execute = HttpRequest.newBuilder(URI.create(base + "/script/js/execute?id=" + SCRIPT_ID + "&content="
+                        + URLEncoder.encode("<b>" + code + "</b>", StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            boolean registered = false;
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited with code " + process.exitValue());
+                }
+                try {
+                    if (!registered) {
+                        registered = client.send(register, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+                    }
+                    if (registered) {
+                        HttpResponse<String> response = client.send(execute, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() == 200 && response.body().contains(String.valueOf(code))) {
+                            return (System.nanoTime() - start) / 1_000_000;
+                        }
+                    }
+                } catch (IOException e) {
+                    // 应用尚未就绪
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("application not ready in " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] sorted) {
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,124 @@
+package com.zero.dynamic.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 加权公平调度: 按权重分配执行时间, 遵守租户并发上限
+ */
+class FairSchedulerTests {
+    private static final long TASK_NANOS = Duration.ofMillis(2).toNanos();
+
+    @Test
+    void sharesFollowWeights() throws Exception {
+        assertSharesFollowWeights(TASK_NANOS);
+    }
+
+    @Test
+    void sharesFollowWeightsWithTinyQuantum() throws Exception {
+        // 执行耗时是 quantum 的数百万倍, 补充额度所需的轮数一次算出
+        assertSharesFollowWeights(1);
+    }
+
+    @Test
+    void tenantConcurrencyIsCapped() throws Exception {
+        FairScheduler scheduler = new FairScheduler(4, TASK_NANOS);
+        scheduler.configure("capped", 1, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger others = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                executor.submit(() -> {
+                    try (FairScheduler.Permit ignored = scheduler.acquire("capped")) {
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        TimeUnit.NANOSECONDS.sleep(TASK_NANOS);
+                        running.decrementAndGet();
+                    }
+                    return null;
+                });
+                executor.submit(() -> {
+                    try (FairScheduler.Permit ignored = scheduler.acquire("other")) {
+                        others.incrementAndGet();
+                        TimeUnit.NANOSECONDS.sleep(TASK_NANOS);
+                    }
+                    return null;
+                });
+            }
+        }
+        assertThat(peak.get()).isEqualTo(1);
+        assertThat(others.get()).isEqualTo(20);
+        assertThat(scheduler.stats().running()).isZero();
+    }
+
+    @Test
+    void removeDoesNotOrphanAcquiringTenant() throws Exception {
+        FairScheduler scheduler = new FairScheduler(1, TASK_NANOS);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread remover = Thread.ofPlatform().start(() -> {
+            while (!done.get()) scheduler.remove("t");
+        });
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                try (FairScheduler.Permit ignored = scheduler.acquire("t")) {
+                    // 持有许可的租户不会被移除, 始终出现在统计中
+                    assertThat(scheduler.stats().tenants())
+                            .anySatisfy(t -> assertThat(t).extracting(FairScheduler.TenantStats::tenant, FairScheduler.TenantStats::running)
+                                    .containsExactly("t", 1));
+                }
+            }
+        } finally {
+            done.set(true);
+            remover.join();
+        }
+    }
+
+    private static void assertSharesFollowWeights(long quantumNanos) throws Exception {
+        FairScheduler scheduler = new FairScheduler(1, quantumNanos);
+        scheduler.configure("heavy", 3, 0);
+        scheduler.configure("light", 1, 0);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // 占用唯一的许可, 等所有调用排队后再放行
+            FairScheduler.Permit blocker = scheduler.acquire("blocker");
+            // light 先排队, 按到达顺序执行时前 20 次全部是 light
+            submit(executor, scheduler, "light", 30, order);
+            awaitWaiting(scheduler, 30);
+            submit(executor, scheduler, "heavy", 30, order);
+            awaitWaiting(scheduler, 60);
+            blocker.close();
+        }
+        long heavy = order.subList(0, 20).stream().filter("heavy"::equals).count();
+        assertThat(heavy).isBetween(12L, 18L);
+        assertThat(order).hasSize(60);
+    }
+
+    private static void submit(ExecutorService executor, FairScheduler scheduler, String tenant, int count, List<String> order) {
+        for (int i = 0; i < count; i++) {
+            executor.submit(() -> {
+                try (FairScheduler.Permit ignored = scheduler.acquire(tenant)) {
+                    order.add(tenant);
+                    TimeUnit.NANOSECONDS.sleep(TASK_NANOS);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static void awaitWaiting(FairScheduler scheduler, int expected) throws InterruptedException {
+        while (scheduler.stats().tenants().stream().mapToInt(FairScheduler.TenantStats::waiting).sum() < expected) {
+            Thread.sleep(1);
+        }
+    }
+}
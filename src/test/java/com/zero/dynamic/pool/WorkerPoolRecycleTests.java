@@ -0,0 +1,63 @@
+package com.zero.dynamic.pool;
+
+import com.zero.dynamic.pool.impl.InvokerJSWork;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 实例回收: 超出执行次数的实例被预热后的新实例替换, 对象池容量不变
+ */
+class WorkerPoolRecycleTests {
+    /// 全局计数器, 模拟不断累积的 guest 状态
+    private static final String SCRIPT = """
+            var calls = 0;
+            function count(content) {
+                calls++;
+                return calls;
+            }
+            """;
+
+    @Test
+    void expiredWorkersAreReplaced() throws Exception {
+        RecyclePolicy policy = new RecyclePolicy(10, Duration.ZERO, 0, 2);
+        try (Engine engine = Engine.create("js");
+             WorkerPool pool = new WorkerPool(2, () -> new InvokerJSWork(SCRIPT, "count",
+                     () -> Context.newBuilder("js").engine(engine).build()), policy)) {
+            int max = 0;
+            for (int i = 0; i < 200; i++) {
+                try (WorkerPoolInvoke worker = pool.poll()) {
+                    max = Math.max(max, worker.call("x").asInt());
+                }
+                // 替换在后台进行, 池中始终有 2 个实例; 替换 (移除旧实例、放入新实例) 在 recycleLock 内完成
+                pool.getRecycleLock().lock();
+                try {
+                    assertThat(pool.getWorkers().size()).isEqualTo(2);
+                } finally {
+                    pool.getRecycleLock().unlock();
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pool.getRecycled().sum() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(pool.getRecycled().sum()).isPositive();
+            // 新实例从头计数 (预热 2 次), 替换完成前旧实例继续服务, 不会无限增长
+            assertThat(max).isLessThan(200);
+            // 释放不等待, 构建中的替代实例完成并关闭后才能关闭引擎
+            pool.close();
+            pool.getTermination().get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void disabledPolicyNeverExpires() {
+        assertThat(RecyclePolicy.NONE.enabled()).isFalse();
+        assertThat(new RecyclePolicy(0, Duration.ofMinutes(1), 0, 0).enabled()).isTrue();
+    }
+}
@@ -0,0 +1,83 @@
+package com.zero.dynamic.pool;
+
+import com.zero.dynamic.pool.impl.InvokerJSWork;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对象池注册表: 超出上下文预算时淘汰最久未使用的空闲对象池, 被淘汰的对象池在下次调用时重建
+ */
+class WorkerPoolRegistryTests {
+    private Engine engine;
+    private WorkerPoolRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        engine = Engine.create("js");
+        registry = new WorkerPoolRegistry(2, 0, 1 << 20);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        registry.invalidate(key -> true).get(10, TimeUnit.SECONDS);
+        engine.close();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPool() throws Exception {
+        call("a");
+        call("b");
+        call("c");
+        WorkerPoolRegistry.Stats stats = registry.stats();
+        assertThat(stats.pools()).isEqualTo(2);
+        assertThat(stats.contexts()).isEqualTo(2);
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(3);
+        assertThat(stats.allocatedBytes()).isPositive();
+
+        // 最近使用的对象池命中
+        assertThat(call("c")).isEqualTo("c:x");
+        assertThat(registry.stats().hits()).isEqualTo(1);
+
+        // 最久未使用的 a 已被淘汰, 再次调用时重建并淘汰 b
+        assertThat(call("a")).isEqualTo("a:x");
+        stats = registry.stats();
+        assertThat(stats.misses()).isEqualTo(4);
+        assertThat(stats.evictions()).isEqualTo(2);
+        assertThat(stats.pools()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsWhenBorrowedPoolIsReturned() throws Exception {
+        try (WorkerPoolInvoke a = registry.checkout("a", pool("a"));
+             WorkerPoolInvoke b = registry.checkout("b", pool("b"));
+             WorkerPoolInvoke c = registry.checkout("c", pool("c"))) {
+            // 全部对象池都在使用中, 暂时超出预算
+            assertThat(registry.stats().pools()).isEqualTo(3);
+            assertThat(c.call("x").asString()).isEqualTo("c:x");
+        }
+        // 实例归还后淘汰
+        assertThat(registry.stats().pools()).isEqualTo(2);
+        assertThat(registry.stats().evictions()).isEqualTo(1);
+    }
+
+    private String call(String key) throws InterruptedException {
+        try (WorkerPoolInvoke worker = registry.checkout(key, pool(key))) {
+            return worker.call("x").asString();
+        }
+    }
+
+    private Supplier<WorkerPool> pool(String key) {
+        String script = "function decode(content) { return '" + key + ":' + content; }";
+        return () -> new WorkerPool(1, () -> new InvokerJSWork(script, "decode",
+                () -> Context.newBuilder("js").engine(engine).build()));
+    }
+}
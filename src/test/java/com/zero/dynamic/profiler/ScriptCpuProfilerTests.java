@@ -0,0 +1,60 @@
+package com.zero.dynamic.profiler;
+
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CPU 采样: 对象池中执行的脚本按 Source 名称采集到脚本帧
+ */
+class ScriptCpuProfilerTests {
+    private static final String SCRIPT = """
+            function decode(content) {
+                var sum = 0;
+                for (var i = 0; i < 20000; i++) {
+                    sum += (i * 31) % 7;
+                }
+                return content + sum;
+            }
+            """;
+
+    private JavaScriptInvoker jsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("hot", SCRIPT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void profilesPooledCalls() throws Exception {
+        ScriptCpuProfiler profiler = new ScriptCpuProfiler();
+        CompletableFuture<ScriptCpuProfiler.CpuProfile> profile = CompletableFuture.supplyAsync(() -> {
+            try {
+                return profiler.profile(jsInvoker.getEngine(), jsInvoker.sourceName("hot"), "hot", Duration.ofSeconds(2), 1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (!profile.isDone()) {
+            jsInvoker.callPooled("hot", "decode", "x");
+        }
+        ScriptCpuProfiler.CpuProfile result = profile.get();
+        assertThat(result.samples()).isPositive();
+        assertThat(result.tree()).isNotEmpty();
+        // 以内容摘要命名的 Source 显示为请求的脚本ID
+        assertThat(result.collapsed()).contains("decode (hot:");
+    }
+}
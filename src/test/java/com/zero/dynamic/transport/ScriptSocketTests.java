@@ -0,0 +1,79 @@
+package com.zero.dynamic.transport;
+
+import com.zero.dynamic.invoker.ExpressionInvoker;
+import com.zero.dynamic.invoker.JavaScriptInvoker;
+import com.zero.dynamic.pool.WorkerPoolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 二进制 socket 接入: 流水线请求、null 返回值与执行失败
+ */
+class ScriptSocketTests {
+    private static final String SCRIPT = """
+            function echo(content) {
+                if (content === 'boom') throw new Error('boom');
+                return content === 'none' ? null : content.toUpperCase();
+            }
+            """;
+
+    @TempDir
+    Path dir;
+    private JavaScriptInvoker jsInvoker;
+    private ExpressionInvoker expressionInvoker;
+
+    @BeforeEach
+    void setUp() {
+        jsInvoker = new JavaScriptInvoker(new WorkerPoolRegistry(8, 0, 1 << 20));
+        jsInvoker.register("echo", SCRIPT);
+        expressionInvoker = new ExpressionInvoker();
+        expressionInvoker.register("trim", "input.trim()");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsInvoker.destroy();
+    }
+
+    @Test
+    void pipelinedCallsOverTcpAndUnixSocket() throws Exception {
+        for (String address : List.of("localhost:0", "unix:" + dir.resolve("script.sock"))) {
+            // 并发上限小于流水线请求数, 验证背压下请求仍全部完成; Python 运行时已关闭
+            ScriptSocketServer server = new ScriptSocketServer(jsInvoker, null, expressionInvoker, address, 1, 16);
+            server.start();
+            try (ScriptSocketClient client = ScriptSocketClient.connect(server.getLocalAddress())) {
+                List<CompletableFuture<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    futures.add(client.callAsync(Frames.LANG_JS, "echo", "echo", "call-" + i));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    assertThat(futures.get(i).get()).isEqualTo("CALL-" + i);
+                }
+                assertThat(client.call(Frames.LANG_EXPR, "trim", "", "  abc ")).isEqualTo("abc");
+                assertThat(client.call(Frames.LANG_JS, "echo", "echo", "none")).isNull();
+                assertThat(client.call(Frames.LANG_JS, "missing", "echo", "x")).isNull();
+                assertThatThrownBy(() -> client.call(Frames.LANG_JS, "echo", "echo", "boom"))
+                        .isInstanceOf(RuntimeException.class)
+                        .hasMessageContaining("boom");
+                assertThatThrownBy(() -> client.call(Frames.LANG_PYTHON, "echo", "echo", "x"))
+                        .hasMessageContaining("python runtime not available");
+                // 脚本ID以无符号 short 记录长度, 超长时拒绝编码
+                assertThatThrownBy(() -> client.call(Frames.LANG_JS, "x".repeat(Frames.MAX_NAME + 1), "echo", "x"))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("id too long");
+            } finally {
+                server.stop();
+            }
+        }
+    }
+}